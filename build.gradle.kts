@@ -21,6 +21,19 @@ dependencies {
     testImplementation("org.junit.jupiter:junit-jupiter:5.7.2")
 }
 
+// JMH benchmarks live in src/jmh/java, and are compiled against the main classes
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+dependencies {
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+}
+
 // Apply a specific Java toolchain to ease working on different environments.
 java {
     toolchain {
@@ -66,3 +79,11 @@ tasks.build {
 tasks.named<Test>("test") {
 	dependsOn("unzip")
 }
+
+// Runs every JMH benchmark, with the GC profiler so allocations are reported alongside times
+// Pass JMH's own options to pick benchmarks or profilers, as in gradle jmh --args="PositionBenchmark -prof gc"
+tasks.register<JavaExec>("jmh") {
+	classpath = sourceSets["jmh"].runtimeClasspath
+	mainClass.set("org.openjdk.jmh.Main")
+	args("-prof", "gc")
+}
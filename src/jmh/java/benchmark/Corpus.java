@@ -0,0 +1,34 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import liveSolverClasses.Position;
+import miscHelpers.Utils;
+
+// Reads the positions (and their expected evals) out of the test files in src/test/resources
+public class Corpus {
+    public final Position[] positions;
+    public final int[] evals;
+
+    public Corpus(String testFile, int limit) throws IOException {
+        Path testCasesPath = Paths.get(Utils.getProjectRoot(), Utils.testResources, testFile);
+        List<String> lines = Files.readAllLines(testCasesPath);
+        int size = Math.min(limit, lines.size());
+
+        positions = new Position[size];
+        evals = new int[size];
+        for (int i = 0; i < size; i++) {
+            String[] line = lines.get(i).split(" ");
+
+            positions[i] = new Position();
+            for (char move : line[0].toCharArray()) {
+                positions[i].playCol(Character.getNumericValue(move));
+            }
+            evals[i] = Integer.parseInt(line[1]);
+        }
+    }
+}
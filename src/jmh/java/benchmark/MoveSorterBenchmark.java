@@ -0,0 +1,53 @@
+package benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import liveSolverClasses.MoveSorter;
+import liveSolverClasses.Position;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Fills a sorter with a full row of moves and drains it, the way the solver does at each node
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveSorterBenchmark {
+    private static final int numOrders = 256;
+
+    private final MoveSorter moveSorter = new MoveSorter();
+    private final long[] moves = new long[Position.WIDTH];
+    private final int[][] scores = new int[numOrders][Position.WIDTH];
+
+    // The bottom square of each column, with random scores in the range moveScore gives, so the insertion sort does a realistic amount of shifting
+    @Setup
+    public void makeMoves() {
+        for (int col = 0; col < Position.WIDTH; col++) {
+            moves[col] = Position.colMask(col) & -Position.colMask(col);
+        }
+
+        Random random = new Random(0);
+        for (int[] order : scores) {
+            for (int col = 0; col < Position.WIDTH; col++) {
+                order[col] = random.nextInt(16);
+            }
+        }
+    }
+
+    @Benchmark
+    public void addAndGetNext(Blackhole blackhole) {
+        for (int[] order : scores) {
+            moveSorter.reset();
+            for (int col = 0; col < Position.WIDTH; col++) {
+                moveSorter.add(moves[col], order[col]);
+            }
+            for (long move = moveSorter.getNext(); move != 0L; move = moveSorter.getNext()) {
+                blackhole.consume(move);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import liveSolverClasses.Position;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/* The bitboard operations the solver runs at every node
+Each benchmark runs over a few hundred real positions from the easy tests, rather than one position,
+so the JIT can't fold the answer into a constant and the branches see realistic boards */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PositionBenchmark {
+    private Position[] positions;
+    private long[] keys;
+    private long[] moves;
+
+    @Setup
+    public void loadPositions() throws IOException {
+        positions = new Corpus("beginEasyTests.txt", 256).positions;
+        keys = new long[positions.length];
+        moves = new long[positions.length];
+
+        for (int i = 0; i < positions.length; i++) {
+            keys[i] = positions[i].getKey();
+
+            // The first playable column's move, for scoring
+            int col = 0;
+            while (!positions[i].canPlay(col)) {
+                col++;
+            }
+            Position child = new Position(positions[i]);
+            child.playCol(col);
+            moves[i] = child.mask ^ positions[i].mask;
+        }
+    }
+
+    @Benchmark
+    public void possibleNonLosingMoves(Blackhole blackhole) {
+        for (Position position : positions) {
+            blackhole.consume(position.possibleNonLosingMoves());
+        }
+    }
+
+    // computeWinningPosition is private, and moveScore is the only thing which calls it on its own
+    @Benchmark
+    public void moveScore(Blackhole blackhole) {
+        for (int i = 0; i < positions.length; i++) {
+            blackhole.consume(positions[i].moveScore(moves[i]));
+        }
+    }
+
+    @Benchmark
+    public void getMirrorKey(Blackhole blackhole) {
+        for (Position position : positions) {
+            blackhole.consume(position.getMirrorKey());
+        }
+    }
+
+    @Benchmark
+    public void keyConstructor(Blackhole blackhole) {
+        for (int i = 0; i < positions.length; i++) {
+            blackhole.consume(new Position(keys[i], positions[i].movesPlayed));
+        }
+    }
+}
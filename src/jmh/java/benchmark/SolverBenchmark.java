@@ -0,0 +1,54 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import liveSolverClasses.Position;
+import liveSolverClasses.Solver;
+import liveSolverClasses.TranspositionTable;
+
+import org.openjdk.jmh.annotations.*;
+
+/* Solves a slice of each test file from an empty table, the same work as the timing tests in testTiming
+Each invocation solves the whole slice once, so the scores are the time for the slice and not one position.
+Run with -prof gc to see allocations, which should stay near zero since the serial search doesn't allocate */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class SolverBenchmark {
+    // Sizes chosen so that one invocation takes a few seconds at most
+    @Param({"beginEasyTests.txt:1000", "beginMediumTests.txt:20", "beginHardTests.txt:2"})
+    public String corpus;
+
+    private Position[] positions;
+    private TranspositionTable table;
+    private Solver solver;
+
+    @Setup(Level.Trial)
+    public void loadCorpus() throws IOException {
+        String[] fileAndLimit = corpus.split(":");
+        positions = new Corpus(fileAndLimit[0], Integer.parseInt(fileAndLimit[1])).positions;
+
+        table = new TranspositionTable();
+        solver = new Solver(table);
+    }
+
+    // Every invocation starts cold, or later ones would just read the answers out of the table
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        table.resetTable();
+    }
+
+    @Benchmark
+    public long solveCorpus() {
+        long evalSum = 0;
+        for (Position position : positions) {
+            // Solving leaves the position as it was, so the same positions can be solved again
+            evalSum += solver.solve(position);
+        }
+        return evalSum;
+    }
+}
@@ -0,0 +1,83 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import liveSolverClasses.BucketedTranspositionTable;
+import liveSolverClasses.ConcurrentTranspositionTable;
+import liveSolverClasses.Position;
+import liveSolverClasses.TranspositionTable;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/* Puts and gets on each kind of table, at the default size
+The keys are every position reached in the first plies below the medium tests, so they look like real keys
+and there are enough of them (tens of thousands) that most accesses miss the CPU caches, like they do in a solve */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TranspositionTableBenchmark {
+    private static final int maxKeys = 1 << 16;
+
+    @Param({"base", "concurrent", "bucketed"})
+    public String tableType;
+
+    private TranspositionTable table;
+    private long[] keys;
+    private int numKeys;
+
+    private void addKeys(Position position, int pliesLeft) {
+        if (numKeys == maxKeys) {
+            return;
+        }
+        keys[numKeys++] = position.getKey();
+
+        if (pliesLeft == 0 || position.priorPlayerHasWon()) {
+            return;
+        }
+        for (int col = 0; col < Position.WIDTH; col++) {
+            if (position.canPlay(col)) {
+                Position child = new Position(position);
+                child.playCol(col);
+                addKeys(child, pliesLeft - 1);
+            }
+        }
+    }
+
+    @Setup
+    public void fillTable() throws IOException {
+        table = switch (tableType) {
+            case "concurrent" -> new ConcurrentTranspositionTable();
+            case "bucketed" -> new BucketedTranspositionTable();
+            default -> new TranspositionTable();
+        };
+
+        keys = new long[maxKeys];
+        for (Position position : new Corpus("beginMediumTests.txt", 1000).positions) {
+            addKeys(position, 3);
+        }
+
+        // Every get should find its key, like a hit during a solve
+        for (int i = 0; i < numKeys; i++) {
+            table.put(keys[i], i % 50 + 1, 20);
+        }
+    }
+
+    @Benchmark
+    public void put(Blackhole blackhole) {
+        for (int i = 0; i < numKeys; i++) {
+            blackhole.consume(table.put(keys[i], i % 50 + 1, 20));
+        }
+    }
+
+    @Benchmark
+    public void get(Blackhole blackhole) {
+        for (int i = 0; i < numKeys; i++) {
+            blackhole.consume(table.get(keys[i]));
+        }
+    }
+}
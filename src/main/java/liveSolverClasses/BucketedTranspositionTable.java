@@ -0,0 +1,120 @@
+package liveSolverClasses;
+
+/* A transposition table where each key can go in any of the 8 entries of its bucket.
+Each entry is one long like in the parent class, so 8 entries make a 64 byte (cache line sized) bucket
+    The upper 32 bits are the same hash bits that the parent class stores
+    Bits 16-23 are the generation (which search wrote the entry)
+    Bits 8-13 are the number of moves played in the position
+    The lower 8 bits are the eval
+
+When a bucket is full, a new entry replaces the least valuable one. Entries from older searches go first,
+then entries deeper in the tree (more moves played), because those took the least work to find.
+That way a cheap entry near the leaves never evicts an expensive one near the root. */
+public class BucketedTranspositionTable extends ConcurrentTranspositionTable {
+    public static final int logBucketSize = 3;
+    public static final int bucketSize = 1 << logBucketSize;
+
+    // The bucket index takes the top bits of the hash, so there need to be at least 2^17 buckets for
+    // the index and the stored 32 bits to pin down a key. That means at least 2^20 entries
+    public static final int minLogEntries = TranspositionTable.minLogEntries + logBucketSize;
+
+    private static final int maxMovesPlayed = Position.WIDTH * Position.HEIGHT;
+
+    public final int numBuckets;
+    private final int bucketShift;
+    private int generation;
+
+    // Public so tests can find keys which share a bucket
+    public int getBucket(long key) {
+        return (int) (hashKey(key) >>> bucketShift);
+    }
+
+    private static boolean sameKey(long entry, long hash) {
+        return (int) (entry >>> 32) == verification(hash);
+    }
+
+    // Higher is worth keeping more. Any entry from this search beats every entry from an older one
+    private int keepPriority(long entry) {
+        int priority = maxMovesPlayed - (int) ((entry >>> 8) & 0x3F);
+        if (((entry >>> 16) & 0xFF) == generation) {
+            priority += maxMovesPlayed + 1;
+        }
+        return priority;
+    }
+
+    @Override
+    public void resetTable() {
+        super.resetTable();
+        generation = 0;
+    }
+
+    @Override
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    // Without the number of moves played, assume the entry is as cheap as possible
+    @Override
+    public boolean put(long key, int eval) {
+        return put(key, eval, maxMovesPlayed);
+    }
+
+    @Override
+    public boolean put(long key, int eval, int movesPlayed) {
+        long hash = hashKey(key);
+        int bucketStart = (int) (hash >>> bucketShift) << logBucketSize;
+        long newEntry = ((long) verification(hash) << 32) | ((long) generation << 16) | ((long) movesPlayed << 8) | (eval & 0xFF);
+
+        // Either update the same key, take an empty entry, or evict the entry with the lowest priority
+        int victim = bucketStart;
+        int victimPriority = Integer.MAX_VALUE;
+        boolean overwrote = true;
+
+        for (int i = bucketStart; i < bucketStart + bucketSize; i++) {
+            long entry = (long) ENTRY.getOpaque(entries, i);
+
+            if ((byte) entry == 0 || sameKey(entry, hash)) {
+                victim = i;
+                overwrote = false;
+                break;
+            }
+
+            int priority = keepPriority(entry);
+            if (priority < victimPriority) {
+                victim = i;
+                victimPriority = priority;
+            }
+        }
+
+        ENTRY.setOpaque(entries, victim, newEntry);
+        return overwrote;
+    }
+
+    @Override
+    public int get(long key) {
+        long hash = hashKey(key);
+        int bucketStart = (int) (hash >>> bucketShift) << logBucketSize;
+
+        for (int i = bucketStart; i < bucketStart + bucketSize; i++) {
+            long entry = (long) ENTRY.getOpaque(entries, i);
+
+            if ((byte) entry != 0 && sameKey(entry, hash)) {
+                return (byte) entry;
+            }
+        }
+        return 0;
+    }
+
+    public BucketedTranspositionTable(int logEntries) {
+        // Java ensures that this starts off as all 0's
+        super(logEntries, new long[1 << logEntries]);
+        checkLogEntries(logEntries, minLogEntries);
+
+        numBuckets = numEntries / bucketSize;
+        bucketShift = keyBits - (logEntries - logBucketSize);
+        generation = 0;
+    }
+    public BucketedTranspositionTable() {
+        this(Math.max(configuredLogEntries(bytesPerEntry), minLogEntries));
+    }
+}
@@ -0,0 +1,99 @@
+package liveSolverClasses;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/* A transposition table which many Solvers on different threads can share without locks.
+
+The parent class keeps the key and the eval of an entry in two arrays, so another thread
+can read a new key next to an old eval (a torn entry) and get a wrong bound.
+Here both halves of an entry are packed into one long, and each long is read and written atomically:
+    The upper 32 bits are the same hash bits that the parent class stores
+    The lower 8 bits are the eval
+Threads can still overwrite each other's entries, but a read always sees one whole entry. */
+public class ConcurrentTranspositionTable extends TranspositionTable {
+    // Opaque access guarantees that a long is never torn, without the cost of volatile fences
+    protected static final VarHandle ENTRY = MethodHandles.arrayElementVarHandle(long[].class);
+
+    public static final int bytesPerEntry = 8;
+
+    protected final long[] entries;
+    private final int indexShift;
+
+    private int getIndex(long hash) {
+        return (int) (hash >>> indexShift);
+    }
+
+    private static long packEntry(long hash, int eval) {
+        return ((long) verification(hash) << 32) | (eval & 0xFF);
+    }
+
+    @Override
+    public void resetTable() {
+        Arrays.fill(entries, 0L);
+    }
+
+    @Override
+    public boolean put(long key, int eval) {
+        long hash = hashKey(key);
+        int index = getIndex(hash);
+
+        // Another thread could write in between, so the answer is only a good estimate
+        long oldEntry = (long) ENTRY.getOpaque(entries, index);
+        ENTRY.setOpaque(entries, index, packEntry(hash, eval));
+        return (byte) oldEntry != 0 && (int) (oldEntry >>> 32) != verification(hash);
+    }
+
+    @Override
+    public int get(long key) {
+        long hash = hashKey(key);
+        long entry = (long) ENTRY.getOpaque(entries, getIndex(hash));
+
+        if ((int) (entry >>> 32) == verification(hash)) {
+            return (byte) entry;
+        }
+        return 0;
+    }
+
+    // Lets subclasses lay out the same kind of packed entries in their own way
+    protected ConcurrentTranspositionTable(int logEntries, long[] initialEntries) {
+        // The packed entries replace the parent's pair of arrays, so the parent gets none
+        super(logEntries, null, null);
+        entries = initialEntries;
+        indexShift = keyBits - logEntries;
+    }
+
+    // Copies a table made by the parent class (for example a serialized one) into the packed layout
+    public ConcurrentTranspositionTable(int[] initialKeys, byte[] initialEvals) {
+        this(serializedLogEntries(initialKeys.length), new long[initialKeys.length]);
+
+        if (initialEvals.length != numEntries) {
+            throw new IllegalArgumentException("Serialized tables need as many evals as keys");
+        }
+        for (int i = 0; i < numEntries; i++) {
+            entries[i] = ((long) initialKeys[i] << 32) | (initialEvals[i] & 0xFF);
+        }
+    }
+    // Packs a saved table straight from its memory mapped file, so the parent class's arrays are never made
+    public ConcurrentTranspositionTable(TableSnapshot snapshot) {
+        this(snapshot.logEntries, new long[snapshot.numEntries]);
+
+        int[] blockKeys = new int[Math.min(TableSnapshot.blockEntries, numEntries)];
+        byte[] blockEvals = new byte[blockKeys.length];
+        for (int first = 0; first < numEntries; first += blockKeys.length) {
+            snapshot.readKeys(first, blockKeys, 0, blockKeys.length);
+            snapshot.readEvals(first, blockEvals, 0, blockEvals.length);
+            for (int i = 0; i < blockKeys.length; i++) {
+                entries[first + i] = ((long) blockKeys[i] << 32) | (blockEvals[i] & 0xFF);
+            }
+        }
+    }
+    public ConcurrentTranspositionTable(int logEntries) {
+        // Java ensures that this starts off as all 0's
+        this(logEntries, new long[1 << logEntries]);
+    }
+    public ConcurrentTranspositionTable() {
+        this(configuredLogEntries(bytesPerEntry));
+    }
+}
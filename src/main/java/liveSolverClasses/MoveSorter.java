@@ -41,6 +41,11 @@ public class MoveSorter {
         return 0L;
     }
 
+    // Empties the sorter, so that one sorter can be reused at every node of the same depth
+    public void reset() {
+        size = 0;
+    }
+
     public MoveSorter() {
         entries = new long[Position.WIDTH];
         size = 0;
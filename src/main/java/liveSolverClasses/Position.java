@@ -213,21 +213,29 @@ public class Position {
 
     // "Mirror" means flip the first column with the last column
     public long getMirrorKey() {
-        long key = getKey();
-
-        long mirrorKey = 0;
+        return mirrorKey(getKey());
+    }
 
-        // This goes up to and including the middle column if it exists
-        for (int i = 0; i < (WIDTH + 1) / 2; i++) {
-            mirrorKey += (key & fullColMask(i)) << (HEIGHT + 1) * (WIDTH - 1 - 2 * i);
-        }
+    /* Mirrors any key without loops or branches, so the solver can afford it at every node
+    Each column (including its top bit) moves by a fixed shift, one AND and one shift per column
+    Need to update manually if we change WIDTH */
+    public static long mirrorKey(long key) {
+        return (key & fullColMask(0)) << 6 * (HEIGHT + 1)
+                | (key & fullColMask(1)) << 4 * (HEIGHT + 1)
+                | (key & fullColMask(2)) << 2 * (HEIGHT + 1)
+                | (key & fullColMask(3))
+                | (key & fullColMask(4)) >>> 2 * (HEIGHT + 1)
+                | (key & fullColMask(5)) >>> 4 * (HEIGHT + 1)
+                | (key & fullColMask(6)) >>> 6 * (HEIGHT + 1);
+    }
 
-        // Then go from the right, never include the middle column
-        for (int i = WIDTH - 1; i > (WIDTH - 1) / 2; i--) {
-            mirrorKey += (key & fullColMask(i)) >> (HEIGHT + 1) * (2 * i - WIDTH + 1);
-        }
+    // A position and its mirror have the same evaluation, so both can be stored under the smaller key
+    public long getCanonicalKey() {
+        return canonicalKey(getKey());
+    }
 
-        return mirrorKey;
+    public static long canonicalKey(long key) {
+        return Math.min(key, mirrorKey(key));
     }
 
     // Returns true iff it is legal to play in the indicated column number
@@ -253,6 +261,15 @@ public class Position {
         movesPlayed++;
     }
 
+    // Takes back a move which was just played with playMove, so the search can reuse one position
+    // Must be the most recent move, otherwise the position ends up corrupted
+    public void undoMove(long move) {
+        mask ^= move;
+        position ^= mask;
+
+        movesPlayed--;
+    }
+
     // Returns true if the player will win by playing in a current column
     // Note, if the position is already won (somehow the game didn't end) this still returns true
     public boolean isWinningMove(int col) {
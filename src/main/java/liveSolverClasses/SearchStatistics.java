@@ -0,0 +1,87 @@
+package liveSolverClasses;
+
+import java.util.Arrays;
+
+/* Counts the work a solver does, broken down by the number of moves played in each node
+Every solver keeps its own counters, so no thread ever writes to another thread's counters.
+Multi-threaded solves add up their helpers' counters when the solve ends. */
+public class SearchStatistics {
+    private static final int depths = Position.WIDTH * Position.HEIGHT + 1;
+
+    // Indexed by moves played
+    public final long[] nodes = new long[depths];
+    public final long[] tableProbes = new long[depths];
+    public final long[] tableHits = new long[depths];
+    public final long[] tableStores = new long[depths];
+    public final long[] tableOverwrites = new long[depths];
+
+    // Indexed by the position of the move in the sorted order, so [0] means the first move searched caused the cutoff
+    public final long[] cutoffsByMoveIndex = new long[Position.WIDTH];
+
+    // How many times solve ran nullWindow on the root, while narrowing down the score
+    public long nullWindowIterations;
+
+    private static long total(long[] counts) {
+        long sum = 0;
+        for (long count : counts) {
+            sum += count;
+        }
+        return sum;
+    }
+    private static void addAll(long[] counts, long[] otherCounts) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += otherCounts[i];
+        }
+    }
+
+    public long totalNodes() {
+        return total(nodes);
+    }
+    public long totalTableProbes() {
+        return total(tableProbes);
+    }
+    public long totalTableHits() {
+        return total(tableHits);
+    }
+    public long totalTableStores() {
+        return total(tableStores);
+    }
+    public long totalTableOverwrites() {
+        return total(tableOverwrites);
+    }
+    public long totalCutoffs() {
+        return total(cutoffsByMoveIndex);
+    }
+
+    public void reset() {
+        for (long[] counts : new long[][] {nodes, tableProbes, tableHits, tableStores, tableOverwrites, cutoffsByMoveIndex}) {
+            Arrays.fill(counts, 0L);
+        }
+        nullWindowIterations = 0;
+    }
+
+    public void add(SearchStatistics other) {
+        addAll(nodes, other.nodes);
+        addAll(tableProbes, other.tableProbes);
+        addAll(tableHits, other.tableHits);
+        addAll(tableStores, other.tableStores);
+        addAll(tableOverwrites, other.tableOverwrites);
+        addAll(cutoffsByMoveIndex, other.cutoffsByMoveIndex);
+        nullWindowIterations += other.nullWindowIterations;
+    }
+
+    // A one line summary, for logging alongside a solve
+    @Override
+    public String toString() {
+        long probes = totalTableProbes();
+        long cutoffs = totalCutoffs();
+
+        return "nodes=" + totalNodes() +
+                " probes=" + probes +
+                " hitRate=" + (probes == 0 ? 0 : 100 * totalTableHits() / probes) + "%" +
+                " stores=" + totalTableStores() +
+                " overwrites=" + totalTableOverwrites() +
+                " firstMoveCutoffs=" + (cutoffs == 0 ? 0 : 100 * cutoffsByMoveIndex[0] / cutoffs) + "%" +
+                " iterations=" + nullWindowIterations;
+    }
+}
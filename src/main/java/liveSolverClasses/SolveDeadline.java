@@ -0,0 +1,30 @@
+package liveSolverClasses;
+
+/* Tells a solve when to give up: once a point in time has passed, or as soon as cancel is called on any thread
+The solver checks this every so many nodes, see Solver.solve(Position, SolveDeadline) */
+public class SolveDeadline {
+    private final long deadlineNanos;
+    private volatile boolean cancelled;
+
+    private SolveDeadline(long initialDeadlineNanos) {
+        deadlineNanos = initialDeadlineNanos;
+    }
+
+    // A deadline this many milliseconds from now
+    public static SolveDeadline after(long millis) {
+        return new SolveDeadline(System.nanoTime() + millis * 1_000_000L);
+    }
+
+    // Only stops when cancelled
+    public static SolveDeadline never() {
+        return new SolveDeadline(Long.MAX_VALUE);
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean hasPassed() {
+        return cancelled || (deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos >= 0);
+    }
+}
@@ -1,29 +1,199 @@
 package liveSolverClasses;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+
 public class Solver {
+    // The two ways that a multi-threaded solver can split up its search
+    public enum ParallelMode {
+        // Every thread searches the whole tree, and they only cooperate through the shared table
+        LAZY_SMP,
+        // Young Brothers Wait: the first child of a node is searched alone, then its siblings in parallel
+        YOUNG_BROTHERS
+    }
+
+    // Only the nodes this many plies below the root are split into parallel tasks, the rest is serial
+    private static final int splitPlies = 6;
+
+    // Returned by settleWindow when the bounds are not enough, so the children need to be searched
+    private static final int UNSETTLED = Integer.MIN_VALUE;
+
+    // The score analyze gives a full column, which can never be played
+    public static final int illegalMove = Integer.MIN_VALUE;
+
+    // A search with a deadline only looks at the clock once every this many nodes
+    private static final int deadlineCheckNodes = 1 << 12;
+
+    // What a solve with a deadline proved: the score is exactly min when min == max, otherwise it is somewhere in [min, max]
+    public record Bounds(int min, int max) {
+        public boolean isExact() {
+            return min == max;
+        }
+    }
+
     private final int[] columnOrder;
     private final TranspositionTable table;
 
-    /* Evaluates the score a position using alpha beta, algorithm.
-    But, it assumes a null window, so beta == alpha + 1
+    // When set, a position and its mirror share one table entry under the smaller of their keys
+    private final boolean mirrorKeys;
 
-    Assumptions:
-        Never called on a full board
-            If solver.solve() is called on full board, instantly returns 0
-            If solver.solve() is called with 41 moves played,
-            then nullWindow already returns 0 because min = max = 0.
-            We will prune and return 0.
+    // One move sorter for each number of moves played, so a node never allocates its own
+    // This makes a solver usable by only one thread at a time
+    private final MoveSorter[] moveSorters;
 
-        No one has already won the game (needs to be checked beforehand)
-        The current player cannot simply win in one move (is checked
-         beforehand by public method "solve")
+    /* Lazy SMP helpers, which are empty for a single threaded solver.
+    Each helper is its own Solver with a different column order, searching the same root
+    and sharing this solver's table. Whoever finishes first has the answer, then stops the rest. */
+    private final Solver[] helpers;
+    private final ExecutorService helperPool;
 
-    Return Values:
-        if actual score of position <= alpha, then actual score <= return value <= alpha
-        if actual score of position >= beta, then beta <= return value <= actual score
-        if alpha < actual score < beta, then return value = actual score */
-    private int nullWindow(Position position, int alpha) {
-        long nonLosing = position.possibleNonLosingMoves();
+    // Runs the Young Brothers Wait tasks, or is null for the other modes
+    private final ForkJoinPool youngBrothersPool;
+
+    /* The solver that each thread of the Young Brothers pool searches with. Made the first time that thread runs a task,
+    then reused by every task it runs, and shared with the workers so that their tasks find it too.
+    Every worker is also in the list, so that their statistics can be added up once a search is over */
+    private ThreadLocal<Solver> youngBrotherWorkers;
+    private List<Solver> youngBrotherWorkerList;
+
+    // Where a worker plays out the leaf of a split before searching it serially
+    private final Position leafPosition = new Position();
+
+    // Set by another thread once the current position is solved, so this search can give up
+    // Or by this one, once the deadline of a bounded solve has passed
+    private volatile boolean stopped;
+
+    // The deadline of the current solve, or null if it has none
+    private SolveDeadline deadline;
+    private int nodesUntilDeadlineCheck;
+
+    // The bounds that serialSolve's binary search has proven so far, which are all there is if it stops early
+    private int provenMin;
+    private int provenMax;
+
+    // The split node that this solver is searching below, when it is running a Young Brothers task
+    private SplitPoint splitPoint;
+
+    /* Counters for the current solve, or null unless enableStatistics was called.
+    Only this solver's thread touches them, so there is no cost beyond the increments.
+    Young Brothers workers each count on their own, and are added up after each search of the root */
+    private SearchStatistics statistics;
+
+    /* A node whose younger children are being searched in parallel.
+    Once one child causes a cutoff, the node is cancelled and so is all the work below it.
+    Work below a node can look up the chain, because its ancestors may have been cancelled too. */
+    private static class SplitPoint {
+        private final SplitPoint parent;
+        private volatile boolean cancelled;
+
+        private SplitPoint root() {
+            SplitPoint node = this;
+            while (node.parent != null) {
+                node = node.parent;
+            }
+            return node;
+        }
+
+        private boolean isCancelled() {
+            for (SplitPoint node = this; node != null; node = node.parent) {
+                if (node.cancelled) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private SplitPoint(SplitPoint initialParent) {
+            parent = initialParent;
+        }
+    }
+
+    /* Searches one node of a Young Brothers split, the parent position after a move, on this thread's worker solver
+    A worker never searches two nodes at once with the same state: a thread only runs another task while joining,
+    and only youngBrothers joins, which keeps nothing in the worker. The serial search below a leaf never joins
+    Tasks are never serialized, they only extend RecursiveTask to run on the pool */
+    @SuppressWarnings("serial")
+    private class YoungBrotherTask extends RecursiveTask<Integer> {
+        private final Position parent;
+        private final long move;
+        private final int alpha;
+        private final SplitPoint split;
+        private final int pliesLeft;
+
+        @Override
+        protected Integer compute() {
+            Solver worker = youngBrotherWorkers.get();
+            worker.setDeadline(deadline);
+
+            // A leaf is searched serially, which plays moves on the position, so it is played out on the worker's own
+            // Other nodes only read their position, but their children read it from other threads, so they keep a copy
+            Position position;
+            if (move == 0L) {
+                position = parent;
+            }
+            else if (pliesLeft == 0) {
+                position = worker.leafPosition;
+                position.position = parent.position;
+                position.mask = parent.mask;
+                position.movesPlayed = parent.movesPlayed;
+                position.playMove(move);
+            }
+            else {
+                position = new Position(parent);
+                position.playMove(move);
+            }
+            return worker.youngBrothers(position, alpha, split, pliesLeft);
+        }
+
+        // A move of 0 searches the parent position itself
+        private YoungBrotherTask(Position initialParent, long initialMove, int initialAlpha, SplitPoint initialSplit, int initialPliesLeft) {
+            parent = initialParent;
+            move = initialMove;
+            alpha = initialAlpha;
+            split = initialSplit;
+            pliesLeft = initialPliesLeft;
+        }
+    }
+
+    private long tableKey(Position position) {
+        if (mirrorKeys) {
+            return position.getCanonicalKey();
+        }
+        return position.getKey();
+    }
+
+    // Stores a value in the table, counting whether it evicted another position's entry
+    private void store(Position position, int tableValue) {
+        boolean overwrote = table.put(tableKey(position), tableValue, position.movesPlayed);
+
+        if (statistics != null) {
+            statistics.tableStores[position.movesPlayed]++;
+            if (overwrote) {
+                statistics.tableOverwrites[position.movesPlayed]++;
+            }
+        }
+    }
+
+    private boolean isStopped() {
+        return stopped || (splitPoint != null && splitPoint.isCancelled());
+    }
+
+    /* The start of nullWindow, before any children are searched.
+    Uses the simple bounds on the score and the transposition table to try and settle the window,
+    returning the same value that nullWindow would. Otherwise returns UNSETTLED */
+    private int settleWindow(Position position, long nonLosing, int alpha) {
+        if (statistics != null) {
+            statistics.nodes[position.movesPlayed]++;
+        }
 
         if (nonLosing == 0L) { // The opponent can immediately win next move, no matter what we do
             return -(Position.WIDTH * Position.HEIGHT - position.movesPlayed) / 2;
@@ -39,9 +209,16 @@ public class Solver {
 
         // Go to the transposition table for potentially tighter upper or lower bounds
         // The lowest possible upper bound is 1, so a stored value of 0 is null data
-        int tableVal = table.get(position.getKey());
+        int tableVal = table.get(tableKey(position));
         int bound;
 
+        if (statistics != null) {
+            statistics.tableProbes[position.movesPlayed]++;
+            if (tableVal != 0) {
+                statistics.tableHits[position.movesPlayed]++;
+            }
+        }
+
         if (tableVal != 0) {
             // stored upper bound
             if (tableVal < Position.MAX_SCORE - Position.MIN_SCORE + 2) {
@@ -70,9 +247,11 @@ public class Solver {
             return min;
         }
 
-        // Prepare for the main recursion with a move sorter
-        MoveSorter moveSorter = new MoveSorter();
+        return UNSETTLED;
+    }
 
+    // Fills a move sorter with all the non losing moves
+    private void sortMoves(MoveSorter moveSorter, Position position, long nonLosing) {
         // Iterate through each column in columnOrder in reverse order, adding to the sorter
         // We go through in reverse order because liveSolverClasses.MoveSorter is a stack in the case of ties
         for (int i = Position.WIDTH - 1; i >= 0; i--) {
@@ -81,19 +260,75 @@ public class Solver {
                 moveSorter.add(move, position.moveScore(move));
             }
         }
+    }
+
+    /* Evaluates the score a position using alpha beta, algorithm.
+    But, it assumes a null window, so beta == alpha + 1
+
+    Assumptions:
+        Never called on a full board
+            If solver.solve() is called on full board, instantly returns 0
+            If solver.solve() is called with 41 moves played,
+            then nullWindow already returns 0 because min = max = 0.
+            We will prune and return 0.
+
+        No one has already won the game (needs to be checked beforehand)
+        The current player cannot simply win in one move (is checked
+         beforehand by public method "solve")
+
+    Return Values:
+        if actual score of position <= alpha, then actual score <= return value <= alpha
+        if actual score of position >= beta, then beta <= return value <= actual score
+        if alpha < actual score < beta, then return value = actual score */
+    private int nullWindow(Position position, int alpha) {
+        // Giving up is the same as being stopped by another thread, so the parent throws this node's score away
+        // A Young Brothers worker stops the whole search by cancelling its root split, which every worker checks
+        if (deadline != null && --nodesUntilDeadlineCheck <= 0) {
+            nodesUntilDeadlineCheck = deadlineCheckNodes;
+            if (deadline.hasPassed()) {
+                if (splitPoint != null) {
+                    splitPoint.root().cancelled = true;
+                }
+                else {
+                    stopped = true;
+                }
+                return alpha;
+            }
+        }
+
+        long nonLosing = position.possibleNonLosingMoves();
+
+        int settled = settleWindow(position, nonLosing, alpha);
+        if (settled != UNSETTLED) {
+            return settled;
+        }
+
+        // Prepare for the main recursion with this depth's move sorter
+        MoveSorter moveSorter = moveSorters[position.movesPlayed];
+        moveSorter.reset();
+        sortMoves(moveSorter, position, nonLosing);
 
         // Iterate through each move in the MoveSorter
         // This is the main recursion
-        for (long move = moveSorter.getNext(); move != 0L; move = moveSorter.getNext()) {
-            // Make a copy of the position, then play a move, and look at from other player's POV
-            Position nextPosition = new Position(position);
-            nextPosition.playMove(move);
+        int moveIndex = 0;
+        for (long move = moveSorter.getNext(); move != 0L; move = moveSorter.getNext(), moveIndex++) {
+            // Play the move and look at it from the other player's POV, then take it back afterwards
+            position.playMove(move);
+            int score = -nullWindow(position, -(alpha + 1)); // The awesome recursion
+            position.undoMove(move);
+
+            // The child gave up part way, so its score means nothing and must not reach the table
+            if (isStopped()) {
+                return alpha;
+            }
 
-            int score = -nullWindow(nextPosition, -(alpha + 1)); // The awesome recursion
             if (score > alpha) { // This is a pruning case
+                if (statistics != null) {
+                    statistics.cutoffsByMoveIndex[moveIndex]++;
+                }
 
                 // This score is a lower bound of the true score (other children could beat this score)
-                table.put(position.getKey(), score + Position.MAX_SCORE - 2 * Position.MIN_SCORE + 2);
+                store(position, score + Position.MAX_SCORE - 2 * Position.MIN_SCORE + 2);
                 return score; // We are returning a score >= beta
             }
         }
@@ -101,20 +336,126 @@ public class Solver {
         /* This alpha is now either the best of all children nodes (none were >= beta)
         But it can also just be the initial value of alpha (implying that all children nodes were < alpha)
         So, this alpha is really an upper bound of the true evaluation of the position */
-        table.put(position.getKey(), alpha - Position.MIN_SCORE + 1);
+        store(position, alpha - Position.MIN_SCORE + 1);
         return alpha;
     }
 
-    public int solve(Position position) {
+    /* Same return values as nullWindow, but the nodes near the root are split up with Young Brothers Wait.
+    The first (best sorted) child is searched on its own, because it usually causes a cutoff.
+    Only if it does not are the younger children forked to the pool, then joined in order.
+    The first one to cause a cutoff cancels the rest. */
+    private int youngBrothers(Position position, int alpha, SplitPoint split, int pliesLeft) {
+        // A cutoff already happened somewhere above, so this task was never needed
+        if (isSplitStopped(split)) {
+            return alpha;
+        }
+
+        if (pliesLeft == 0) {
+            splitPoint = split;
+            return nullWindow(position, alpha);
+        }
+
+        long nonLosing = position.possibleNonLosingMoves();
+
+        int settled = settleWindow(position, nonLosing, alpha);
+        if (settled != UNSETTLED) {
+            return settled;
+        }
+
+        // The sorter is emptied before any task is run, so a task run on this thread while joining can reuse it
+        MoveSorter moveSorter = moveSorters[position.movesPlayed];
+        moveSorter.reset();
+        sortMoves(moveSorter, position, nonLosing);
+
+        SplitPoint node = new SplitPoint(split);
+        YoungBrotherTask[] brothers = new YoungBrotherTask[Position.WIDTH];
+        int numBrothers = 0;
+        for (long move = moveSorter.getNext(); move != 0L; move = moveSorter.getNext()) {
+            brothers[numBrothers++] = new YoungBrotherTask(position, move, -(alpha + 1), node, pliesLeft - 1);
+        }
+
+        // The eldest brother is searched before anything is forked
+        int score = -brothers[0].invoke();
+        int cutoffIndex = 0;
+
+        // Fork in reverse, so that this thread pops them back off in sorted order while joining
+        if (score <= alpha && !isSplitStopped(split)) {
+            for (int i = numBrothers - 1; i > 0; i--) {
+                brothers[i].fork();
+            }
+            for (int i = 1; i < numBrothers && score <= alpha; i++) {
+                score = -brothers[i].join();
+                cutoffIndex = i;
+            }
+
+            // Either there was a cutoff, or everything is joined already. Then wait for stragglers to give up
+            node.cancelled = true;
+            for (int i = 1; i < numBrothers; i++) {
+                brothers[i].quietlyJoin();
+            }
+        }
+
+        if (isSplitStopped(split)) {
+            return alpha;
+        }
+
+        if (score > alpha) {
+            if (statistics != null) {
+                statistics.cutoffsByMoveIndex[cutoffIndex]++;
+            }
+
+            // This score is a lower bound of the true score (other children could beat this score)
+            store(position, score + Position.MAX_SCORE - 2 * Position.MIN_SCORE + 2);
+            return score;
+        }
+
+        // Every child was at most alpha, so alpha is an upper bound
+        store(position, alpha - Position.MIN_SCORE + 1);
+        return alpha;
+    }
+
+    // Checks a split node's ancestors along with the global stop, for code that runs above the serial search
+    private boolean isSplitStopped(SplitPoint split) {
+        return stopped || (split != null && split.isCancelled());
+    }
+
+    /* Searches the root with the null window, however this solver is set up to do it
+    Young Brothers tasks all hang below one root split, which is only ever cancelled once the deadline passes */
+    private int rootWindow(Position position, int alpha) {
+        if (youngBrothersPool == null) {
+            return nullWindow(position, alpha);
+        }
+        SplitPoint root = new SplitPoint(null);
+        int score = youngBrothersPool.invoke(new YoungBrotherTask(position, 0L, alpha, root, splitPlies));
+        if (root.cancelled) {
+            stopped = true;
+        }
+
+        // Every task has been joined by now, so the workers are idle and their counters can be read
+        if (statistics != null) {
+            synchronized (youngBrotherWorkerList) {
+                for (Solver worker : youngBrotherWorkerList) {
+                    statistics.add(worker.statistics);
+                    worker.statistics.reset();
+                }
+            }
+        }
+        return score;
+    }
+
+    private int serialSolve(Position position) {
         // Check if we can win in one move on this turn, as Negamax will now assume that we cannot
         if (position.canWinNext()) {
-            return (Position.WIDTH * Position.HEIGHT + 1 - position.movesPlayed) / 2;
+            provenMin = provenMax = (Position.WIDTH * Position.HEIGHT + 1 - position.movesPlayed) / 2;
+            return provenMin;
         }
 
         // Use Negamax and null window search
         // Comparable to using binary search, where we are searching for the true position score
         int min = -(Position.WIDTH*Position.HEIGHT - position.movesPlayed) / 2;
         int max = (Position.WIDTH*Position.HEIGHT - position.movesPlayed + 1) / 2;
+        provenMin = min;
+        provenMax = max;
 
         while (min < max) {
             /* This is the true middle value between max and min
@@ -134,7 +475,13 @@ public class Solver {
                 middle = max / 2;
             }
 
-            int result = nullWindow(position, middle);
+            int result = rootWindow(position, middle);
+            if (stopped) {
+                return 0;
+            }
+            if (statistics != null) {
+                statistics.nullWindowIterations++;
+            }
 
             // This result tells us if the true position score is <= or >= middle
             if (result <= middle) {
@@ -143,21 +490,290 @@ public class Solver {
             else {
                 min = result;
             }
+            provenMin = min;
+            provenMax = max;
         }
         // Loop ends when min = max = true score.
         return min;
     }
 
-    // Someone can pass in their own table, if they already know information
-    public Solver(TranspositionTable initialTable) {
+    /* Every thread runs the whole binary search on its own copy of the position.
+    They all read and write the same table, so the bounds that one thread proves
+    let the others skip that work, and the first one to finish wins.
+    With a deadline every helper has the same one. If it passes before anyone finishes,
+    the bounds are the ones this solver's own binary search proved */
+    private int parallelSolve(Position position) {
+        CompletableFuture<Integer> winner = new CompletableFuture<>();
+        ArrayList<Future<?>> helperSearches = new ArrayList<>();
+
+        stopped = false;
+        for (Solver helper : helpers) {
+            helper.stopped = false;
+            helper.setDeadline(deadline);
+        }
+
+        for (Solver helper : helpers) {
+            Position helperPosition = new Position(position);
+            helperSearches.add(helperPool.submit(() -> race(helper, helperPosition, winner)));
+        }
+        race(this, position, winner);
+
+        // Wait for every helper to give up, so none of them are still searching during the next solve
+        try {
+            for (Future<?> helperSearch : helperSearches) {
+                helperSearch.get();
+            }
+        }
+        catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Parallel solve failed", e);
+        }
+
+        // Now that the helpers are idle, their counters can be read
+        if (statistics != null) {
+            for (Solver helper : helpers) {
+                statistics.add(helper.statistics);
+                helper.statistics.reset();
+            }
+        }
+
+        // Only the deadline stops every thread without a winner, and then this solver is stopped too
+        if (!winner.isDone()) {
+            return 0;
+        }
+        try {
+            int score = winner.get();
+            provenMin = provenMax = score;
+            return score;
+        }
+        catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Parallel solve failed", e);
+        }
+    }
+
+    // Starts counting down to a deadline check, unless this solver already has the deadline
+    private void setDeadline(SolveDeadline solveDeadline) {
+        if (deadline != solveDeadline) {
+            deadline = solveDeadline;
+            nodesUntilDeadlineCheck = deadlineCheckNodes;
+        }
+    }
+
+    // Runs one thread's search, and if it finishes first then publishes its score and stops everyone else
+    private void race(Solver searcher, Position position, CompletableFuture<Integer> winner) {
+        int score = searcher.serialSolve(position);
+
+        if (!searcher.stopped && winner.complete(score)) {
+            stopped = true;
+            for (Solver helper : helpers) {
+                helper.stopped = true;
+            }
+        }
+    }
+
+    // The position is played on during the search, but is always back how it started when this returns
+    // A solver is not thread safe, so each thread needs its own (they can still share a concurrent table)
+    public int solve(Position position) {
+        table.newSearch();
+        if (statistics != null) {
+            statistics.reset();
+        }
+        return search(position);
+    }
+
+    /* Solves until the deadline passes, then gives up with the tightest bounds the binary search has proven
+    For example [0, 18] would mean the player to move can at least draw. If it finishes in time, the bounds are exact
+    Nothing that was cut short is stored in the table, so the solver and table can be used as normal afterwards
+    Every thread of a multi-threaded solver watches the same deadline, and the bounds come from this solver's binary search */
+    public Bounds solve(Position position, SolveDeadline solveDeadline) {
+        table.newSearch();
+        if (statistics != null) {
+            statistics.reset();
+        }
+
+        setDeadline(solveDeadline);
+        try {
+            return boundedSearch(position);
+        }
+        finally {
+            deadline = null;
+            stopped = false;
+        }
+    }
+
+    // Searches until done or stopped by the deadline. A finished binary search has proven min == max
+    private Bounds boundedSearch(Position position) {
+        stopped = false;
+        search(position);
+        return new Bounds(provenMin, provenMax);
+    }
+
+    /* Starts counting nodes, table use, and cutoffs on every solve from now on
+    Costs one increment per counter, so it is cheap enough to leave on */
+    public void enableStatistics() {
+        statistics = new SearchStatistics();
+        if (youngBrotherWorkerList != null) {
+            synchronized (youngBrotherWorkerList) {
+                for (Solver worker : youngBrotherWorkerList) {
+                    worker.statistics = new SearchStatistics();
+                }
+            }
+        }
+        for (Solver helper : helpers) {
+            helper.enableStatistics();
+        }
+    }
+
+    // What the last solve (or analyze) did, added up over all of its threads
+    // Null unless enableStatistics was called
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /* Solves every child of a position in one search, from the point of view of the player to move
+    So the value for a column is the score of playing there, or illegalMove if the column is full.
+    Each child gets its own binary search, the same as solve would give it. What they share is the table:
+    they are solved in one table generation, so entries from an earlier sibling's subtree (which overlaps
+    the later ones heavily) are kept and reused. No bounds pass between siblings, since every child needs
+    its exact score, and a window limited by the best sibling would only prove the others are worse.
+    Like solve, this assumes that no one has already won */
+    public int[] analyze(Position position) {
+        Bounds[] bounds = analyze(position, null);
+        int[] scores = new int[Position.WIDTH];
+        for (int col = 0; col < Position.WIDTH; col++) {
+            scores[col] = bounds[col] == null ? illegalMove : bounds[col].min();
+        }
+        return scores;
+    }
+
+    /* The same, except that every child shares the deadline (or none, if it is null), the way solve(Position, SolveDeadline) uses it
+    A full column gets null. Once the deadline passes, each child left only gets the bounds its search proves before it next checks */
+    public Bounds[] analyze(Position position, SolveDeadline solveDeadline) {
+        table.newSearch();
+        if (statistics != null) {
+            statistics.reset();
+        }
+
+        setDeadline(solveDeadline);
+        try {
+            Bounds[] bounds = new Bounds[Position.WIDTH];
+            for (int col = 0; col < Position.WIDTH; col++) {
+                if (!position.canPlay(col)) {
+                    continue;
+                }
+                if (position.isWinningMove(col)) {
+                    int score = (Position.WIDTH * Position.HEIGHT + 1 - position.movesPlayed) / 2;
+                    bounds[col] = new Bounds(score, score);
+                    continue;
+                }
+
+                // The child's bounds are from its own point of view, so they flip
+                Position child = new Position(position);
+                child.playCol(col);
+                Bounds childBounds = boundedSearch(child);
+                bounds[col] = new Bounds(-childBounds.max(), -childBounds.min());
+            }
+            return bounds;
+        }
+        finally {
+            deadline = null;
+            stopped = false;
+        }
+    }
+
+    private int search(Position position) {
+        if (helpers.length == 0) {
+            return serialSolve(position);
+        }
+        return parallelSolve(position);
+    }
+
+    // Helpers look at columns in a rotated order, so that the threads spread out over the tree
+    private Solver(TranspositionTable initialTable, int orderRotation, int threads, ParallelMode mode, boolean useMirrorKeys) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("A solver needs at least 1 thread, not " + threads);
+        }
+
         // This tells us which order to explore the columns in
         columnOrder = new int[Position.WIDTH];
         for (int i = 0; i < Position.WIDTH; i++) {
             // Start in the middle and move out
-            columnOrder[i] = Position.WIDTH/2 + (1-2*(i%2)) * (i+1)/2;
+            int j = (i + orderRotation) % Position.WIDTH;
+            columnOrder[i] = Position.WIDTH/2 + (1-2*(j%2)) * (j+1)/2;
         }
 
         table = initialTable;
+        mirrorKeys = useMirrorKeys;
+
+        moveSorters = new MoveSorter[Position.WIDTH * Position.HEIGHT + 1];
+        for (int i = 0; i < moveSorters.length; i++) {
+            moveSorters[i] = new MoveSorter();
+        }
+
+        // Young Brothers Wait is one search, so only Lazy SMP needs helper solvers
+        int helperCount = threads - 1;
+        if (threads > 1 && mode == ParallelMode.YOUNG_BROTHERS) {
+            youngBrothersPool = new ForkJoinPool(threads, pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+            helperCount = 0;
+
+            youngBrotherWorkerList = Collections.synchronizedList(new ArrayList<>());
+            youngBrotherWorkers = ThreadLocal.withInitial(() -> {
+                Solver worker = new Solver(initialTable, 0, 1, ParallelMode.LAZY_SMP, useMirrorKeys);
+                worker.youngBrotherWorkers = youngBrotherWorkers;
+                if (statistics != null) {
+                    worker.statistics = new SearchStatistics();
+                }
+                youngBrotherWorkerList.add(worker);
+                return worker;
+            });
+        }
+        else {
+            youngBrothersPool = null;
+        }
+
+        helpers = new Solver[helperCount];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Solver(initialTable, i + 1, 1, mode, useMirrorKeys);
+        }
+
+        if (helpers.length == 0) {
+            helperPool = null;
+        }
+        else {
+            // Daemon threads, so an idle solver never keeps the JVM alive
+            helperPool = Executors.newFixedThreadPool(helpers.length, runnable -> {
+                Thread thread = new Thread(runnable, "solver-helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // Someone can pass in their own table, if they already know information
+    public Solver(TranspositionTable initialTable) {
+        this(initialTable, false);
+    }
+
+    // Mirror keys make a table hold nearly twice as many positions, at the cost of mirroring each key
+    public Solver(TranspositionTable initialTable, boolean useMirrorKeys) {
+        this(initialTable, 0, 1, ParallelMode.LAZY_SMP, useMirrorKeys);
+    }
+
+    // Multi-threaded solver, which splits each solve over this many threads in the given mode
+    // The threads share the table, so it has to be safe for concurrent use
+    public Solver(ConcurrentTranspositionTable initialTable, int threads, ParallelMode mode, boolean useMirrorKeys) {
+        this(initialTable, 0, threads, mode, useMirrorKeys);
+    }
+    public Solver(ConcurrentTranspositionTable initialTable, int threads, ParallelMode mode) {
+        this(initialTable, threads, mode, false);
+    }
+
+    // Lazy SMP solver, which splits each solve over this many threads
+    public Solver(ConcurrentTranspositionTable initialTable, int threads) {
+        this(initialTable, threads, ParallelMode.LAZY_SMP);
     }
 
     public Solver() {
@@ -0,0 +1,183 @@
+package liveSolverClasses;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/* A saved transposition table, which is memory mapped and copied straight into a table's arrays
+This replaces Java serialization, which reads the whole file onto the heap, then builds the arrays from it
+
+The file is a header, then the keys, then the evals, with no gaps:
+    Header: magic, version, log2 of the number of entries, and a CRC32C of everything after the header (four ints)
+    Keys: one int per entry
+    Evals: one byte per entry
+Everything is little endian, the byte order of the machines the server runs on, so copying keys is a plain copy */
+public class TableSnapshot {
+    public static final int magic = 0x54543443; // "C4TT" when read as bytes
+    public static final int version = 1;
+    public static final int headerBytes = 4 * Integer.BYTES;
+    // Whole tables are copied to and from snapshots this many entries at a time, or all at once when smaller
+    public static final int blockEntries = 1 << 16;
+
+    public final int logEntries;
+    public final int numEntries;
+    private final ByteBuffer[] chunks;
+
+    /* The data is mapped in chunks, since one mapping can't reach 2 GB, which tables of 2^29 entries or more do.
+    Chunks are a whole number of keys long, so no key is split between two of them */
+    private static final int chunkBytes = 1 << 30;
+
+    private static long fileBytes(int numEntries) {
+        return headerBytes + (long) numEntries * (Integer.BYTES + 1);
+    }
+
+    private static ByteBuffer[] mapChunks(FileChannel channel, FileChannel.MapMode mode, int numEntries) throws IOException {
+        long dataBytes = fileBytes(numEntries) - headerBytes;
+        ByteBuffer[] chunks = new ByteBuffer[(int) ((dataBytes + chunkBytes - 1) / chunkBytes)];
+        for (int i = 0; i < chunks.length; i++) {
+            long start = (long) i * chunkBytes;
+            chunks[i] = channel.map(mode, headerBytes + start, Math.min(chunkBytes, dataBytes - start));
+        }
+        return chunks;
+    }
+
+    private static int checksum(ByteBuffer[] chunks) {
+        CRC32C crc = new CRC32C();
+        for (ByteBuffer chunk : chunks) {
+            crc.update(chunk.duplicate());
+        }
+        return (int) crc.getValue();
+    }
+
+    // Is given each piece of a range of the data, in order, along with how many bytes of the range came before it
+    private interface PieceVisitor {
+        void visit(ByteBuffer piece, long bytesBefore);
+    }
+
+    private static void forEachPiece(ByteBuffer[] chunks, long start, long length, PieceVisitor visitor) {
+        long done = 0;
+        while (done < length) {
+            ByteBuffer chunk = chunks[(int) ((start + done) / chunkBytes)];
+            int offset = (int) ((start + done) % chunkBytes);
+            int pieceBytes = (int) Math.min(length - done, chunk.capacity() - offset);
+            visitor.visit(chunk.slice(offset, pieceBytes).order(ByteOrder.LITTLE_ENDIAN), done);
+            done += pieceBytes;
+        }
+    }
+
+    // Copies length keys, from entry first on, into keys starting at offset
+    // Many tables can read one snapshot at once, since this never moves any shared position
+    public void readKeys(int first, int[] keys, int offset, int length) {
+        forEachPiece(chunks, (long) first * Integer.BYTES, (long) length * Integer.BYTES,
+                (piece, bytesBefore) -> piece.asIntBuffer().get(keys, offset + (int) (bytesBefore / Integer.BYTES), piece.remaining() / Integer.BYTES));
+    }
+
+    public void readEvals(int first, byte[] evals, int offset, int length) {
+        forEachPiece(chunks, (long) numEntries * Integer.BYTES + first, length,
+                (piece, bytesBefore) -> piece.get(evals, offset + (int) bytesBefore, piece.remaining()));
+    }
+
+    private static void putKeys(ByteBuffer[] chunks, int first, int[] keys, int offset, int length) {
+        forEachPiece(chunks, (long) first * Integer.BYTES, (long) length * Integer.BYTES,
+                (piece, bytesBefore) -> piece.asIntBuffer().put(keys, offset + (int) (bytesBefore / Integer.BYTES), piece.remaining() / Integer.BYTES));
+    }
+
+    private static void putEvals(ByteBuffer[] chunks, int numEntries, int first, byte[] evals, int offset, int length) {
+        forEachPiece(chunks, (long) numEntries * Integer.BYTES + first, length,
+                (piece, bytesBefore) -> piece.put(evals, offset + (int) bytesBefore, piece.remaining()));
+    }
+
+    // Fills in the keys and evals of a snapshot being written, through putKeys and putEvals
+    private interface DataWriter {
+        void write(ByteBuffer[] chunks);
+    }
+
+    private static void write(int numEntries, DataWriter dataWriter, File snapshotFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] chunks = mapChunks(channel, FileChannel.MapMode.READ_WRITE, numEntries);
+            dataWriter.write(chunks);
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, headerBytes);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0, magic);
+            header.putInt(4, version);
+            header.putInt(8, Integer.numberOfTrailingZeros(numEntries));
+            header.putInt(12, checksum(chunks));
+            for (ByteBuffer chunk : chunks) {
+                ((MappedByteBuffer) chunk).force();
+            }
+            header.force();
+        }
+    }
+
+    // Writes the arrays of a table, such as ones passed to TranspositionTable(int[], byte[])
+    public static void write(int[] keys, byte[] evals, File snapshotFile) throws IOException {
+        if (Integer.bitCount(keys.length) != 1 || evals.length != keys.length) {
+            throw new IllegalArgumentException("Tables need a power of two number of entries");
+        }
+        write(keys.length, chunks -> {
+            putKeys(chunks, 0, keys, 0, keys.length);
+            putEvals(chunks, keys.length, 0, evals, 0, evals.length);
+        }, snapshotFile);
+    }
+
+    /* Writes a table which solvers on other threads may still be using
+    Each entry is read atomically on its own, so no solver ever waits, and every saved entry was really in the table.
+    Entries can change while the snapshot is written, so it is a mix of older and newer entries, which is fine for a cache.
+    Only for the plain concurrent layout, since a bucketed table keeps more than the key and eval in an entry */
+    public static void write(ConcurrentTranspositionTable table, File snapshotFile) throws IOException {
+        if (table.getClass() != ConcurrentTranspositionTable.class) {
+            throw new IllegalArgumentException("Can only save a ConcurrentTranspositionTable, not a " + table.getClass().getSimpleName());
+        }
+        write(table.numEntries, chunks -> {
+            // A block at a time, so the entries are copied in bulk without a second whole table on the heap
+            int[] blockKeys = new int[Math.min(blockEntries, table.numEntries)];
+            byte[] blockEvals = new byte[blockKeys.length];
+            for (int first = 0; first < table.numEntries; first += blockKeys.length) {
+                for (int i = 0; i < blockKeys.length; i++) {
+                    long entry = (long) ConcurrentTranspositionTable.ENTRY.getOpaque(table.entries, first + i);
+                    blockKeys[i] = (int) (entry >>> 32);
+                    blockEvals[i] = (byte) entry;
+                }
+                putKeys(chunks, first, blockKeys, 0, blockKeys.length);
+                putEvals(chunks, table.numEntries, first, blockEvals, 0, blockEvals.length);
+            }
+        }, snapshotFile);
+    }
+
+    // Maps a snapshot, and checks its header and checksum before anything reads it
+    public TableSnapshot(File snapshotFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < headerBytes) {
+                throw new IOException("Not a table snapshot: " + snapshotFile);
+            }
+            MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, headerBytes);
+            file.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (file.getInt(0) != magic) {
+                throw new IOException("Not a table snapshot: " + snapshotFile);
+            }
+            if (file.getInt(4) != version) {
+                throw new IOException("Table snapshot " + snapshotFile + " is version " + file.getInt(4) + ", expected " + version);
+            }
+
+            logEntries = file.getInt(8);
+            if (logEntries < 0 || logEntries > TranspositionTable.maxLogEntries || channel.size() != fileBytes(1 << logEntries)) {
+                throw new IOException("Table snapshot " + snapshotFile + " has the wrong size for 2^" + logEntries + " entries");
+            }
+            numEntries = 1 << logEntries;
+
+            // The mapping stays valid after the channel is closed
+            chunks = mapChunks(channel, FileChannel.MapMode.READ_ONLY, numEntries);
+            if (checksum(chunks) != file.getInt(12)) {
+                throw new IOException("Table snapshot " + snapshotFile + " is corrupt: its checksum does not match");
+            }
+        }
+    }
+}
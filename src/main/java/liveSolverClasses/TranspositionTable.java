@@ -1,36 +1,86 @@
 package liveSolverClasses;
 
+import java.math.BigInteger;
 import java.util.Arrays;
 
-/* Store each entry in the table as a long (64 bits, 8 bytes), within a massive array
-The upper 56 bits of this will be for the position key
-The lower 8 bits will be for the position evaluation
+/* Store each entry in the table as an int key and a byte eval (5 bytes), within two massive arrays
 
-Have a complete transposition table of size 64 MB, or 2^26 byes
-This means we will 2^23 entries
-
-We take the 23 least significant bits of the position key to determine the index within the table (hashing)
-These are bits 9-31 of each entry */
+The number of entries is a power of two, chosen at runtime (40 MB, or 2^23 entries, by default)
+Say the table has 2^n entries. Then keys are hashed, and the top n bits of the hash are the index
+The low 32 bits of the hash are stored, so that we can tell whether an entry belongs to a key */
 public class TranspositionTable {
-    /* Wanted 2 ^ 23 to be the real number of entries
-    Each entry is 5 bytes (4 key and 1 eval), so this would lead to a 40MB table.
-    Needed to add 9 entries more entries, so numEntries is a prime number
-    In practice, could have just added 1 so that it is odd, but prime is better */
-    public static final int numEntries = (1 << 23) + 9;
+    // Keys are 49 bits (7 bits per column), and so is their hash
+    protected static final int keyBits = Position.WIDTH * (Position.HEIGHT + 1);
+    private static final long keyMask = (1L << keyBits) - 1;
+
+    /* Multiplying by an odd number (mod 2^49) is a bijection on keys, so no two keys share a hash
+    This one is the golden ratio, which is known to spread keys evenly over the top bits.
+    Because the index holds the top n bits of the hash, and the entry holds the low 32 bits,
+    an entry pins down its key exactly as long as n + 32 >= 49 */
+    private static final long hashMultiplier = 0x9E3779B97F4A7C15L;
+
+    public static final int minLogEntries = keyBits - 32;
+    public static final int maxLogEntries = 30; // Java arrays are indexed by ints
+
+    // Set -DtransTableMegabytes=N to change how much memory a table made with the default constructor uses
+    public static final String sizeProperty = "transTableMegabytes";
+    public static final int defaultMegabytes = 40;
+    public static final int bytesPerEntry = 5;
+
+    /* Tables saved before this layout have (1 << 23) + 9 entries, which is prime, with each key at index key % legacyEntries
+    and its low 32 bits stored in the entry. Keys are under 2^49, which is less than 2^32 * legacyEntries,
+    so by the Chinese remainder theorem an old entry's index and stored bits still pin down its whole key */
+    public static final int legacyEntries = (1 << 23) + 9;
+    private static final long legacyInverse = BigInteger.ONE.shiftLeft(32).modInverse(BigInteger.valueOf(legacyEntries)).longValue();
+
+    public final int numEntries;
+    private final int indexShift;
 
     // We have two large arrays, one for keys and one for evaluations.
     // They are the same size and paired up by index, so we can imagine one table of pairs
     private final int[] keys;
     private final byte[] evals;
 
+    protected static long hashKey(long key) {
+        return (key * hashMultiplier) & keyMask;
+    }
+
+    // The part of a hash which each entry stores
+    protected static int verification(long hash) {
+        return (int) hash;
+    }
+
+    // Largest power of two number of entries that fits in the configured number of megabytes
+    public static int configuredLogEntries(int entryBytes) {
+        long megabytes = Long.parseLong(System.getProperty(sizeProperty, String.valueOf(defaultMegabytes)));
+        long entries = (megabytes << 20) / entryBytes;
+
+        int logEntries = 63 - Long.numberOfLeadingZeros(Math.max(entries, 1));
+        return Math.min(Math.max(logEntries, minLogEntries), maxLogEntries);
+    }
+
+    protected static void checkLogEntries(int logEntries, int minimum) {
+        if (logEntries < minimum || logEntries > maxLogEntries) {
+            throw new IllegalArgumentException("Table needs between 2^" + minimum + " and 2^" + maxLogEntries +
+                    " entries, not 2^" + logEntries);
+        }
+    }
+
+    // The log of the number of entries of serialized arrays, with a clear message for the ones that can't be used as they are
+    protected static int serializedLogEntries(int length) {
+        if (length == legacyEntries) {
+            throw new IllegalArgumentException("This table has (1 << 23) + 9 entries, so it uses the layout from before " +
+                    "multiply-shift hashing. Run TransTableSerializer convert, or copy it over with putLegacyEntries");
+        }
+        if (Integer.bitCount(length) != 1) {
+            throw new IllegalArgumentException("Serialized tables need a power of two number of entries, not " + length);
+        }
+        return Integer.numberOfTrailingZeros(length);
+    }
+
     // Private methods
-    private static int getIndex(long key) {
-        /* Should not get any signed bit problems
-        Keys are 49 bits, and stored as longs (64 bits) so they are always positive
-        Then we modulo but numEntries, and get a new positive number
-        At most, this positive number is (numEntries - 1)
-        Storing that largest possible number only takes 24 bits, so it will always cast to a positive int */
-        return (int) (key % numEntries);
+    private int getIndex(long hash) {
+        return (int) (hash >>> indexShift);
     }
 
     public void resetTable() {
@@ -38,30 +88,95 @@ public class TranspositionTable {
         Arrays.fill(evals, (byte) 0);
     }
 
-    public void put(long key, int eval) {
-        int index = getIndex(key);
+    // Returns true if this evicted an entry for a different key, which is useful for statistics
+    public boolean put(long key, int eval) {
+        long hash = hashKey(key);
+        int index = getIndex(hash);
+        boolean overwrote = evals[index] != 0 && keys[index] != verification(hash);
 
-        // Keys are always positive, so this cast really only uses 31 bits
-        keys[index] = (int) key;
+        keys[index] = verification(hash);
         evals[index] = (byte) eval;
+        return overwrote;
+    }
+
+    /* Tables which choose what to keep can use how many moves were played in the position.
+    Fewer moves played means more work went into finding the eval. This table always overwrites */
+    public boolean put(long key, int eval, int movesPlayed) {
+        return put(key, eval);
+    }
+
+    /* Puts every entry of a table saved in the old layout (see legacyEntries) into this one, and returns how many there were
+    Each full key is rebuilt from the entry's index (the key mod legacyEntries) and the low 32 bits that it stored */
+    public int putLegacyEntries(int[] legacyKeys, byte[] legacyEvals) {
+        if (legacyKeys.length != legacyEntries || legacyEvals.length != legacyEntries) {
+            throw new IllegalArgumentException("Old tables have " + legacyEntries + " entries, not " + legacyKeys.length);
+        }
+
+        int count = 0;
+        for (int index = 0; index < legacyEntries; index++) {
+            // An eval of 0 is an empty entry
+            if (legacyEvals[index] == 0) {
+                continue;
+            }
+
+            // key = low + 2^32 * high, where high = (index - low) / 2^32 mod legacyEntries
+            long low = legacyKeys[index] & 0xFFFFFFFFL;
+            long high = Math.floorMod(index - low, (long) legacyEntries) * legacyInverse % legacyEntries;
+            long key = low + (high << 32);
+
+            // Anything else was never written by a solver
+            if (key >>> keyBits == 0) {
+                put(key, legacyEvals[index]);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Marks the start of a new solve, so tables can tell entries from older searches apart
+    public void newSearch() {
     }
 
     public int get(long key) {
-        int index = getIndex(key);
+        long hash = hashKey(key);
+        int index = getIndex(hash);
 
-        if (keys[index] == (int) key) {
+        if (keys[index] == verification(hash)) {
             return evals[index];
         }
         return 0;
     }
 
-	// Useful when a valid table is serialized. So we can read and prevent a cold start
-    public TranspositionTable(int[] initialKeys, byte[] initialEvals) {
+    // Subclasses store their entries their own way, so they only pass the size up and the arrays are null
+    protected TranspositionTable(int logEntries, int[] initialKeys, byte[] initialEvals) {
+        checkLogEntries(logEntries, minLogEntries);
+
+        numEntries = 1 << logEntries;
+        indexShift = keyBits - logEntries;
         keys = initialKeys;
         evals = initialEvals;
     }
-    public TranspositionTable() {
+
+	// Useful when a valid table is serialized. So we can read and prevent a cold start
+    // The arrays must have a power of two length
+    public TranspositionTable(int[] initialKeys, byte[] initialEvals) {
+        this(serializedLogEntries(initialKeys.length), initialKeys, initialEvals);
+
+        if (initialEvals.length != numEntries) {
+            throw new IllegalArgumentException("Serialized tables need as many evals as keys");
+        }
+    }
+    // Copies a saved table straight from its memory mapped file into the arrays
+    public TranspositionTable(TableSnapshot snapshot) {
+        this(snapshot.logEntries, new int[snapshot.numEntries], new byte[snapshot.numEntries]);
+        snapshot.readKeys(0, keys, 0, numEntries);
+        snapshot.readEvals(0, evals, 0, numEntries);
+    }
+    public TranspositionTable(int logEntries) {
         // Java ensures that this starts off as all 0's
-       this(new int[numEntries], new byte[numEntries]);
+        this(logEntries, new int[1 << logEntries], new byte[1 << logEntries]);
+    }
+    public TranspositionTable() {
+        this(configuredLogEntries(bytesPerEntry));
     }
 }
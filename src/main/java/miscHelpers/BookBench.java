@@ -0,0 +1,126 @@
+package miscHelpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+import openingBookHelpers.BookReader;
+import openingBookHelpers.CompressedBookReader;
+import openingBookHelpers.HashedBookReader;
+import openingBookHelpers.MappedBookReader;
+import openingBookHelpers.TreeReader;
+
+/* Compares each way the server can read the opening book: startup time, memory, and time per lookup
+Lookups are of random positions from the book, so they are all hits, in no useful order for the caches
+
+    java miscHelpers.BookBench [lookups]
+        lookups is how many to time per format (a million by default). The tree reader only does a few
+        thousand of them, since each one reads the file again */
+public class BookBench {
+    private static final int treeLookups = 2000;
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static File bookFile(String resources, int depth) {
+        return Paths.get(Utils.getProjectRoot(), resources, "depth" + depth + "Book.bin").toFile();
+    }
+
+    // Returns the average nanoseconds per lookup
+    private static double timeLookups(BookReader[] readers, long[] keys, int[] depths, int lookups) throws IOException {
+        Random random = new Random(0);
+        long evalSum = 0;
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            int index = random.nextInt(keys.length);
+            evalSum += readers[depths[index]].get(keys[index]);
+        }
+        long elapsed = System.nanoTime() - startTime;
+
+        // Printing the sum keeps the JIT from skipping the lookups
+        System.out.println("    (eval sum " + evalSum + ")");
+        return (double) elapsed / lookups;
+    }
+
+    private static void report(String format, long startupMillis, long bytes, double nanosPerLookup) {
+        System.out.printf("%-12s startup %,8d ms   memory %,8d MB   %,10.1f ns per lookup%n",
+                format, startupMillis, bytes >> 20, nanosPerLookup);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int lookups = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int maxBookDepth = TreeReader.getMaxBookDepth();
+
+        // Every key in the book, with its depth, to look up at random
+        int totalEntries = 0;
+        long[][] depthEntries = new long[maxBookDepth + 1][];
+        for (int depth = 0; depth <= maxBookDepth; depth++) {
+            depthEntries[depth] = TreeReader.readBookEntries(TreeReader.findBook(Utils.bookResources, depth));
+            totalEntries += depthEntries[depth].length;
+        }
+        long[] keys = new long[totalEntries];
+        int[] depths = new int[totalEntries];
+        int filled = 0;
+        for (int depth = 0; depth <= maxBookDepth; depth++) {
+            for (long entry : depthEntries[depth]) {
+                keys[filled] = entry >>> 8;
+                depths[filled++] = depth;
+            }
+        }
+        depthEntries = null;
+        System.out.println(totalEntries + " positions in depths 0 to " + maxBookDepth);
+
+        // The tree reader has nothing to load, and keeps nothing in memory
+        BookReader[] readers = new BookReader[maxBookDepth + 1];
+        for (int depth = 0; depth <= maxBookDepth; depth++) {
+            readers[depth] = TreeReader.openBook(TreeReader.findBook(Utils.bookResources, depth));
+        }
+        report("tree", 0, 0, timeLookups(readers, keys, depths, Math.min(lookups, treeLookups)));
+
+        // Mapped books live outside the heap, so their memory is the size of the files
+        if (TreeReader.getMaxBookDepth(Utils.mappedBookResources) >= maxBookDepth) {
+            long startTime = System.currentTimeMillis();
+            long bytes = 0;
+            for (int depth = 0; depth <= maxBookDepth; depth++) {
+                File book = bookFile(Utils.mappedBookResources, depth);
+                readers[depth] = new MappedBookReader(book);
+                bytes += book.length();
+            }
+            report("mapped", System.currentTimeMillis() - startTime, bytes, timeLookups(readers, keys, depths, lookups));
+        }
+        else {
+            System.out.println("mapped       skipped, run openingBookHelpers.BookConverter first");
+        }
+
+        if (TreeReader.getMaxBookDepth(Utils.compressedBookResources) >= maxBookDepth) {
+            long startTime = System.currentTimeMillis();
+            long bytes = 0;
+            for (int depth = 0; depth <= maxBookDepth; depth++) {
+                File book = bookFile(Utils.compressedBookResources, depth);
+                readers[depth] = new CompressedBookReader(book);
+                bytes += book.length();
+            }
+            report("compressed", System.currentTimeMillis() - startTime, bytes, timeLookups(readers, keys, depths, lookups));
+        }
+        else {
+            System.out.println("compressed   skipped, run openingBookHelpers.BookConverter compressed first");
+        }
+
+        for (boolean perfectHash : new boolean[] {false, true}) {
+            readers = new BookReader[maxBookDepth + 1];
+            long heapBefore = usedHeap();
+            long startTime = System.currentTimeMillis();
+            HashedBookReader hashedReader = HashedBookReader.loadTreeBooks(maxBookDepth, perfectHash);
+            long startupMillis = System.currentTimeMillis() - startTime;
+
+            Arrays.fill(readers, hashedReader);
+            report(perfectHash ? "perfectHash" : "hashed", startupMillis, usedHeap() - heapBefore, timeLookups(readers, keys, depths, lookups));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package miscHelpers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/* Measures how quickly a running server answers cheap requests while it is busy with deep solves
+
+    java miscHelpers.LoadBench <serverUrl> <testFile> [--solvers N] [--seconds N]
+
+N clients (2 by default) keep sending /solve/ requests for the positions of a file in src/test/resources,
+each waiting for its answer before sending the next. Meanwhile one client keeps sending the cheap requests
+(the front end's index page and /alignment/) one after another. After the given time (20 s by default)
+it prints the latency percentiles of each kind of request */
+public class LoadBench {
+    private static long timeRequest(HttpClient client, String url) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException(url + " answered with status " + response.statusCode());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void printLatencies(String name, List<Long> nanos) {
+        if (nanos.isEmpty()) {
+            System.out.println(name + ": no requests finished");
+            return;
+        }
+        long[] sorted = nanos.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("%s: %d requests, p50 %.1f ms, p95 %.1f ms, p99 %.1f ms, max %.1f ms%n", name, sorted.length,
+                Utils.percentile(sorted, 50) / 1e6, Utils.percentile(sorted, 95) / 1e6, Utils.percentile(sorted, 99) / 1e6, sorted[sorted.length - 1] / 1e6);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String serverUrl = args[0].replaceAll("/+$", "");
+        int solvers = Integer.parseInt(Utils.flagValue(args, "--solvers", "2"));
+        long seconds = Long.parseLong(Utils.flagValue(args, "--seconds", "20"));
+
+        Path testCasesPath = Paths.get(Utils.getProjectRoot(), Utils.testResources, args[1]);
+        List<String> positions = new ArrayList<>();
+        for (String line : Files.readAllLines(testCasesPath)) {
+            if (!line.isBlank()) {
+                positions.add(line.trim().split(" ")[0]);
+            }
+        }
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long endTime = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Long> solveNanos = Collections.synchronizedList(new ArrayList<>());
+        List<Long> cheapNanos = new ArrayList<>();
+
+        // Each solve client takes the next position, so no two solve the same one
+        AtomicInteger nextPosition = new AtomicInteger();
+        Thread[] solveClients = new Thread[solvers];
+        for (int i = 0; i < solvers; i++) {
+            solveClients[i] = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < endTime) {
+                        String moves = positions.get(nextPosition.getAndIncrement() % positions.size());
+                        solveNanos.add(timeRequest(client, serverUrl + "/solve/" + moves));
+                    }
+                }
+                catch (IOException | InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            solveClients[i].start();
+        }
+
+        String[] cheapPaths = { "/", "/alignment/4455" };
+        for (int i = 0; System.nanoTime() < endTime; i++) {
+            cheapNanos.add(timeRequest(client, serverUrl + cheapPaths[i % cheapPaths.length]));
+        }
+        for (Thread solveClient : solveClients) {
+            solveClient.join();
+        }
+
+        System.out.println("With " + solvers + " clients solving " + args[1] + " for " + seconds + " s:");
+        printLatencies("Cheap requests " + Arrays.toString(cheapPaths), cheapNanos);
+        printLatencies("Solves", solveNanos);
+    }
+}
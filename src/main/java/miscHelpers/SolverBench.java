@@ -0,0 +1,279 @@
+package miscHelpers;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import liveSolverClasses.Position;
+import liveSolverClasses.SearchStatistics;
+import liveSolverClasses.Solver;
+import liveSolverClasses.TranspositionTable;
+
+/* Times the solver on one of the test files, to judge a solver change before deploying it
+
+    java miscHelpers.SolverBench run <testFile> [--limit N] [--warm] [--warmup N] [--out results.json]
+        Solves the first N positions of a file in src/test/resources (all of them by default)
+        Each position starts from an empty table, unless --warm keeps the table between positions
+        --warmup solves that many positions untimed first, so the JIT has compiled the search
+        Prints a summary, and writes every position's time and node count as JSON
+
+    java miscHelpers.SolverBench compare <baseline.json> <candidate.json> [--threshold percent]
+        Flags any summary number that got worse by more than the threshold (10% by default),
+        and any wrong eval. Exits with status 1 if anything was flagged */
+public class SolverBench {
+    private static final double defaultThreshold = 10.0;
+
+    // One solved position
+    private record Result(String moves, int eval, int expected, long nanos, long nodes) {}
+
+    private static final Pattern numberField = Pattern.compile("\"(\\w+)\": (-?[0-9.]+(?:E-?[0-9]+)?)");
+    private static final Pattern movesField = Pattern.compile("\"moves\": \"([0-9]*)\"");
+
+    private static boolean hasFlag(String[] args, String flag) {
+        return Arrays.asList(args).contains(flag);
+    }
+
+    private static List<String[]> readTests(String testFile, int limit) throws IOException {
+        Path testCasesPath = Paths.get(Utils.getProjectRoot(), Utils.testResources, testFile);
+        List<String[]> tests = new ArrayList<>();
+
+        for (String line : Files.readAllLines(testCasesPath)) {
+            if (tests.size() == limit) {
+                break;
+            }
+            if (!line.isBlank()) {
+                tests.add(line.trim().split(" "));
+            }
+        }
+        return tests;
+    }
+
+    private static Position playMoves(String moves) {
+        Position position = new Position();
+        for (char move : moves.toCharArray()) {
+            position.playCol(Character.getNumericValue(move));
+        }
+        return position;
+    }
+
+    private static void run(String[] args) throws IOException {
+        String testFile = args[1];
+        int limit = Integer.parseInt(Utils.flagValue(args, "--limit", String.valueOf(Integer.MAX_VALUE)));
+        int warmup = Integer.parseInt(Utils.flagValue(args, "--warmup", "0"));
+        boolean warm = hasFlag(args, "--warm");
+        String outFile = Utils.flagValue(args, "--out", null);
+
+        List<String[]> tests = readTests(testFile, limit);
+        if (tests.isEmpty()) {
+            System.out.println(testFile + ": no positions to solve");
+            return;
+        }
+        TranspositionTable table = new TranspositionTable();
+        Solver solver = new Solver(table);
+        solver.enableStatistics();
+
+        for (int i = 0; i < Math.min(warmup, tests.size()); i++) {
+            solver.solve(playMoves(tests.get(i)[0]));
+        }
+        table.resetTable();
+
+        // Add up the statistics of every solve, for the hit rate
+        SearchStatistics totals = new SearchStatistics();
+        List<Result> results = new ArrayList<>();
+        for (String[] test : tests) {
+            if (!warm) {
+                table.resetTable();
+            }
+            Position position = playMoves(test[0]);
+
+            long start = System.nanoTime();
+            int eval = solver.solve(position);
+            long nanos = System.nanoTime() - start;
+
+            totals.add(solver.getStatistics());
+            results.add(new Result(test[0], eval, Integer.parseInt(test[1]), nanos, solver.getStatistics().totalNodes()));
+        }
+
+        Map<String, Double> summary = summarize(results, totals);
+        printSummary(testFile + (warm ? " (warm table)" : " (cold table)"), summary);
+
+        String json = toJson(testFile, warm, results, summary);
+        if (outFile == null) {
+            System.out.print(json);
+        }
+        else {
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(Paths.get(outFile)))) {
+                writer.print(json);
+            }
+            System.out.println("Wrote " + results.size() + " results to " + outFile);
+        }
+    }
+
+    // Times are in microseconds, so they read easily
+    private static Map<String, Double> summarize(List<Result> results, SearchStatistics totals) {
+        long[] sortedNanos = results.stream().mapToLong(Result::nanos).sorted().toArray();
+        long totalNanos = Arrays.stream(sortedNanos).sum();
+        long totalNodes = totals.totalNodes();
+        long probes = totals.totalTableProbes();
+
+        Map<String, Double> summary = new LinkedHashMap<>();
+        summary.put("positions", (double) results.size());
+        summary.put("wrongEvals", (double) results.stream().filter(result -> result.eval() != result.expected()).count());
+        summary.put("totalMicros", totalNanos / 1e3);
+        summary.put("p50Micros", Utils.percentile(sortedNanos, 50) / 1e3);
+        summary.put("p90Micros", Utils.percentile(sortedNanos, 90) / 1e3);
+        summary.put("p99Micros", Utils.percentile(sortedNanos, 99) / 1e3);
+        summary.put("maxMicros", sortedNanos.length == 0 ? 0 : sortedNanos[sortedNanos.length - 1] / 1e3);
+        summary.put("totalNodes", (double) totalNodes);
+        summary.put("nodesPerSecond", totalNanos == 0 ? 0 : totalNodes * 1e9 / totalNanos);
+        summary.put("tableHitRate", probes == 0 ? 0 : (double) totals.totalTableHits() / probes);
+        return summary;
+    }
+
+    private static void printSummary(String title, Map<String, Double> summary) {
+        System.out.println(title);
+        for (Map.Entry<String, Double> field : summary.entrySet()) {
+            System.out.printf("    %-16s %,.3f%n", field.getKey(), field.getValue());
+        }
+    }
+
+    // Each position gets its own line, so that compare can read the file back a line at a time
+    private static String toJson(String testFile, boolean warm, List<Result> results, Map<String, Double> summary) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n\"file\": \"").append(testFile).append("\",\n");
+        json.append("\"warm\": ").append(warm).append(",\n");
+
+        json.append("\"summary\": {");
+        int field = 0;
+        for (Map.Entry<String, Double> entry : summary.entrySet()) {
+            json.append(field++ == 0 ? "" : ", ").append('"').append(entry.getKey()).append("\": ").append(entry.getValue());
+        }
+        json.append("},\n");
+
+        json.append("\"results\": [\n");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            json.append("{\"moves\": \"").append(result.moves()).append("\", \"eval\": ").append(result.eval())
+                    .append(", \"expected\": ").append(result.expected()).append(", \"nanos\": ").append(result.nanos())
+                    .append(", \"nodes\": ").append(result.nodes()).append('}')
+                    .append(i == results.size() - 1 ? "\n" : ",\n");
+        }
+        json.append("]\n}\n");
+        return json.toString();
+    }
+
+    // Reads back what toJson wrote: the summary numbers, and each position's fields by its moves
+    private static Map<String, Double> readSummary(List<String> lines) {
+        Map<String, Double> summary = new LinkedHashMap<>();
+        for (String line : lines) {
+            if (line.startsWith("\"summary\"")) {
+                Matcher matcher = numberField.matcher(line);
+                while (matcher.find()) {
+                    summary.put(matcher.group(1), Double.parseDouble(matcher.group(2)));
+                }
+            }
+        }
+        if (summary.isEmpty()) {
+            throw new IllegalArgumentException("Not a SolverBench results file");
+        }
+        return summary;
+    }
+
+    private static Map<String, Map<String, Double>> readResults(List<String> lines) {
+        Map<String, Map<String, Double>> results = new HashMap<>();
+        for (String line : lines) {
+            Matcher moves = movesField.matcher(line);
+            if (!line.startsWith("{\"moves\"") || !moves.find()) {
+                continue;
+            }
+
+            Map<String, Double> fields = new HashMap<>();
+            Matcher matcher = numberField.matcher(line);
+            while (matcher.find()) {
+                fields.put(matcher.group(1), Double.parseDouble(matcher.group(2)));
+            }
+            results.put(moves.group(1), fields);
+        }
+        return results;
+    }
+
+    private static boolean compare(String[] args) throws IOException {
+        List<String> baselineLines = Files.readAllLines(Paths.get(args[1]));
+        List<String> candidateLines = Files.readAllLines(Paths.get(args[2]));
+        double threshold = Double.parseDouble(Utils.flagValue(args, "--threshold", String.valueOf(defaultThreshold)));
+
+        Map<String, Double> baseline = readSummary(baselineLines);
+        Map<String, Double> candidate = readSummary(candidateLines);
+        boolean regressed = false;
+
+        System.out.printf("%-16s %16s %16s %9s%n", "", "baseline", "candidate", "change");
+        for (String field : baseline.keySet()) {
+            if (!candidate.containsKey(field)) {
+                continue;
+            }
+            double before = baseline.get(field);
+            double after = candidate.get(field);
+            double change = before == 0 ? 0 : 100 * (after - before) / before;
+
+            // More nodes per second and more table hits are better, everything else is better lower
+            boolean higherIsBetter = field.equals("nodesPerSecond") || field.equals("tableHitRate");
+            boolean worse = higherIsBetter ? change < -threshold : change > threshold;
+            if (field.equals("positions")) {
+                worse = false;
+            }
+            if (field.equals("wrongEvals")) {
+                worse = after > 0;
+            }
+
+            regressed |= worse;
+            System.out.printf("%-16s %,16.3f %,16.3f %+8.1f%% %s%n", field, before, after, change, worse ? "REGRESSION" : "");
+        }
+
+        // The positions which slowed down the most, since a summary can hide one bad position
+        Map<String, Map<String, Double>> baselineResults = readResults(baselineLines);
+        Map<String, Map<String, Double>> candidateResults = readResults(candidateLines);
+        List<String> shared = new ArrayList<>(baselineResults.keySet());
+        shared.retainAll(candidateResults.keySet());
+        shared.sort((a, b) -> Double.compare(
+                candidateResults.get(b).get("nanos") / baselineResults.get(b).get("nanos"),
+                candidateResults.get(a).get("nanos") / baselineResults.get(a).get("nanos")));
+
+        System.out.println();
+        System.out.println("Biggest slowdowns of " + shared.size() + " positions in both runs:");
+        for (String moves : shared.subList(0, Math.min(5, shared.size()))) {
+            Map<String, Double> before = baselineResults.get(moves);
+            Map<String, Double> after = candidateResults.get(moves);
+            System.out.printf("    %-24s %,.0f -> %,.0f us, %,.0f -> %,.0f nodes%n", moves.isEmpty() ? "<Starting Position>" : moves,
+                    before.get("nanos") / 1e3, after.get("nanos") / 1e3, before.get("nodes"), after.get("nodes"));
+        }
+
+        System.out.println();
+        System.out.println(regressed ? "Regressions beyond " + threshold + "% found" : "No regressions beyond " + threshold + "%");
+        return regressed;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 2 && args[0].equals("run")) {
+            run(args);
+        }
+        else if (args.length >= 3 && args[0].equals("compare")) {
+            if (compare(args)) {
+                System.exit(1);
+            }
+        }
+        else {
+            System.out.println("Usage: SolverBench run <testFile> [--limit N] [--warm] [--warmup N] [--out results.json]");
+            System.out.println("       SolverBench compare <baseline.json> <candidate.json> [--threshold percent]");
+        }
+    }
+}
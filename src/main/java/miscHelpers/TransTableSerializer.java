@@ -2,24 +2,71 @@ package miscHelpers;
 
 import liveSolverClasses.Position;
 import liveSolverClasses.Solver;
+import liveSolverClasses.TableSnapshot;
 import liveSolverClasses.TranspositionTable;
 
-import java.io.FileOutputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
+import java.io.ObjectInputStream;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashSet;
 
-// Serializes a transposition table after solving several positions up to a max depth
+/* Saves a transposition table as a TableSnapshot after solving several positions up to a max depth
+Run with the argument convert to turn tables saved by the old Java serialization (depthNKeys.ser and depthNEvals.ser)
+into snapshots, without solving anything again. Tables from before multiply-shift hashing are rebuilt entry by entry
+into a table of the configured size (see TranspositionTable.putLegacyEntries), others are saved as they are */
 public class TransTableSerializer {
     final static int maxDepth = 1;
 
-    public static void main(String[] args) throws IOException {
+    public static Path snapshotPath(int depth) {
+        return Paths.get(Utils.getProjectRoot(), Utils.tableResources, "depth" + depth + "Table.bin");
+    }
+
+    private static void convert() throws IOException, ClassNotFoundException {
+        for (int depth = 0; depth <= maxDepth; depth++) {
+            Path keysPath = Paths.get(Utils.getProjectRoot(), Utils.tableResources, "depth" + depth + "Keys.ser");
+            Path evalsPath = Paths.get(Utils.getProjectRoot(), Utils.tableResources, "depth" + depth + "Evals.ser");
+            if (!Files.exists(keysPath) || !Files.exists(evalsPath)) {
+                continue;
+            }
+
+            int[] keys;
+            byte[] evals;
+            try (ObjectInputStream inKeys = new ObjectInputStream(new FileInputStream(keysPath.toFile()))) {
+                keys = (int[]) inKeys.readObject();
+            }
+            try (ObjectInputStream inEvals = new ObjectInputStream(new FileInputStream(evalsPath.toFile()))) {
+                evals = (byte[]) inEvals.readObject();
+            }
+            // Tables from before multiply-shift hashing can't be saved as they are, so their entries are copied over
+            if (keys.length == TranspositionTable.legacyEntries) {
+                int numEntries = 1 << TranspositionTable.configuredLogEntries(TranspositionTable.bytesPerEntry);
+                int[] newKeys = new int[numEntries];
+                byte[] newEvals = new byte[numEntries];
+                int count = new TranspositionTable(newKeys, newEvals).putLegacyEntries(keys, evals);
+                System.out.println("Copied " + count + " entries of depth " + depth + " from the old layout into " + numEntries + " entries");
+                keys = newKeys;
+                evals = newEvals;
+            }
+            TableSnapshot.write(keys, evals, snapshotPath(depth).toFile());
+            System.out.println("Converted depth " + depth + " to " + snapshotPath(depth));
+        }
+    }
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        if (args.length > 0 && args[0].equals("convert")) {
+            convert();
+            return;
+        }
+
         //  By using these constructors, I still have a reference to the table and arrays
-        int[] myKeys = new int[TranspositionTable.numEntries];
-        byte[] myEvals = new byte[TranspositionTable.numEntries];
+        // The size comes from -DtransTableMegabytes, the same as the server's table
+        int numEntries = 1 << TranspositionTable.configuredLogEntries(TranspositionTable.bytesPerEntry);
+        int[] myKeys = new int[numEntries];
+        byte[] myEvals = new byte[numEntries];
         TranspositionTable myTable = new TranspositionTable(myKeys, myEvals);
         Solver solver = new Solver(myTable);
 
@@ -29,11 +76,6 @@ public class TransTableSerializer {
         currPositions.add(blankPosition);
 
         for (int depth = 0; depth <= maxDepth; depth++) {
-            String keysFileName = "depth"+depth+"Keys.ser";
-            String evalsFileName = "depth"+depth+"Evals.ser";
-            Path keysPath = Paths.get(Utils.getProjectRoot(), Utils.tableResources, keysFileName);
-            Path evalPath = Paths.get(Utils.getProjectRoot(), Utils.tableResources, evalsFileName);
-
             ArrayList<Position> nextPositions = new ArrayList<>();
             HashSet<Long> nextPositionKeys = new HashSet<>();
 
@@ -57,15 +99,7 @@ public class TransTableSerializer {
                 }
             }
 
-            ObjectOutputStream outKeys = new ObjectOutputStream(new FileOutputStream(keysPath.toString()));
-            outKeys.writeObject(myKeys);
-            outKeys.flush();
-            outKeys.close();
-
-            ObjectOutputStream outEvals = new ObjectOutputStream(new FileOutputStream(evalPath.toString()));
-            outEvals.writeObject(myEvals);
-            outEvals.flush();
-            outEvals.close();
+            TableSnapshot.write(myKeys, myEvals, snapshotPath(depth).toFile());
 
             System.out.println("Done serializing at depth " + depth);
 
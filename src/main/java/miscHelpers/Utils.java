@@ -6,10 +6,37 @@ import java.nio.file.Paths;
 public class Utils {
 	final public static String projectFolder = "Connect_Four_Project";
 	final public static String bookResources = "src/main/resources/openingBook";
+	final public static String mappedBookResources = "src/main/resources/mappedOpeningBook";
+	final public static String compressedBookResources = "src/main/resources/compressedOpeningBook";
+	final public static String childEvalBookResources = "src/main/resources/childEvalOpeningBook";
+	final public static String bookShardResources = "src/main/resources/bookShards";
+	final public static String bookJournalResources = "src/main/resources/bookJournal";
 	final public static String tableResources = "src/main/resources/transTableSerialized";
+	final public static String tableCheckpointResources = "src/main/resources/tableCheckpoints";
     final public static String testResources = "src/test/resources";
 	final public static String frontEndResources = "src/main/resources/frontEnd";
 
+	// Books holding only canonical keys (see CanonicalBookReader) go in a folder next to the full books of the same format
+	public static String canonicalResources(String bookResources) {
+		return bookResources + "Canonical";
+	}
+
+	// The value after a flag in a helper's command line arguments, such as "--limit 10", or otherwise if the flag is not there
+	public static String flagValue(String[] args, String flag, String otherwise) {
+		for (int i = 0; i < args.length - 1; i++) {
+			if (args[i].equals(flag)) {
+				return args[i + 1];
+			}
+		}
+		return otherwise;
+	}
+
+	// Nearest rank percentile of a sorted array, which must not be empty
+	public static long percentile(long[] sorted, double percent) {
+		int rank = (int) Math.ceil(percent / 100 * sorted.length);
+		return sorted[Math.max(rank - 1, 0)];
+	}
+
 	public static String getProjectRoot() {
 		Path path = Paths.get(System.getProperty("user.dir"));
 
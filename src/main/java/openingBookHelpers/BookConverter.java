@@ -0,0 +1,77 @@
+package openingBookHelpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import miscHelpers.Utils;
+
+/* Converts every depth of the AVL tree book into another format, given as the command line argument
+    mapped (the default) is the memory mapped format that MappedBookReader reads
+    compressed is the smaller format that CompressedBookReader reads
+    tree keeps the tree format, which is only useful along with canonical
+Adding canonical as a second argument keeps only canonical keys, for CanonicalBookReader. Those books are about half the size
+The converted books go in their own folder, with the same file names */
+public class BookConverter {
+    private static String resourcesFor(String format) {
+        switch (format) {
+            case "mapped": return Utils.mappedBookResources;
+            case "compressed": return Utils.compressedBookResources;
+            case "tree": return Utils.bookResources;
+            default: throw new IllegalArgumentException("Unknown book format " + format + ", expected mapped, compressed, or tree");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String format = args.length > 0 ? args[0] : "mapped";
+        boolean canonical = Arrays.asList(args).contains("canonical");
+
+        String resources = resourcesFor(format);
+        if (format.equals("tree") && !canonical) {
+            throw new IllegalArgumentException("The book is already in the tree format");
+        }
+        if (canonical) {
+            resources = Utils.canonicalResources(resources);
+        }
+
+        int maxBookDepth = TreeReader.getMaxBookDepth();
+        Path convertedBooks = Paths.get(Utils.getProjectRoot(), resources);
+        Files.createDirectories(convertedBooks);
+
+        for (int depth = 0; depth <= maxBookDepth; depth++) {
+            String bookName = "depth" + depth + "Book.bin";
+            File book = TreeReader.findBook(Utils.bookResources, depth);
+
+            long[] entries = TreeReader.readBookEntries(book);
+            if (canonical) {
+                entries = CanonicalBookReader.canonicalEntries(entries);
+            }
+
+            // Converting to a tree keeps a book that is too big for one as a sorted book
+            if (format.equals("tree") && entries.length > SortedBookWriter.maxEntries) {
+                bookName = SortedBookReader.fileName(depth);
+            }
+            File convertedBook = convertedBooks.resolve(bookName).toFile();
+
+            if (format.equals("compressed")) {
+                CompressedBookReader.writeBook(entries, convertedBook);
+            }
+            else if (format.equals("mapped")) {
+                MappedBookReader.writeBook(entries, convertedBook);
+            }
+            else {
+                try (SortedBookWriter bookWriter = new SortedBookWriter(convertedBook)) {
+                    for (long entry : entries) {
+                        bookWriter.insertNode(entry >>> 8, (byte) entry);
+                    }
+                    BookMaker.writeBook(bookWriter, convertedBook);
+                }
+            }
+            System.out.println("Converted depth " + depth + " with " + entries.length + " positions, from " +
+                    book.length() + " to " + convertedBook.length() + " bytes");
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package openingBookHelpers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/* Saves solved positions as BookMaker (or ChildEvalBookMaker) goes, so a run that dies can pick up where it left off
+
+The journal is append only. Each record is the position's index in the maker's list, its key, and the value solved for it:
+its eval for BookMaker, or the packed evals of its children for ChildEvalBookMaker.
+Every so often the journal is forced to disk, and a checkpoint file records how long the journal was at that point.
+Everything before that length is safely on disk, so on restart the journal is cut back to it (dropping any
+half written record) and replayed. At most one checkpoint interval of work is lost.
+
+The list of positions comes from the prior depth's book in a fixed order, so the indices mean the same thing
+every run. The keys are checked anyway, in case the prior book changed in between
+
+The values are only kept in the journal file. Once every position is solved, the maker streams them back out with forEachRecord */
+public class BookJournal implements Closeable {
+    private static final int recordBytes = Integer.BYTES + 2 * Long.BYTES;
+
+    private final Path journalPath;
+    private final Path checkpointPath;
+    private final long[] keys;
+
+    private final BitSet solved;
+    private int numSolved;
+
+    private FileOutputStream journalFile;
+    private DataOutputStream journal;
+
+    // Called with each record of the journal
+    public interface RecordVisitor {
+        void visit(int index, long key, long value) throws IOException;
+    }
+
+    public boolean isSolved(int index) {
+        synchronized (solved) {
+            return solved.get(index);
+        }
+    }
+
+    public int getNumSolved() {
+        synchronized (solved) {
+            return numSolved;
+        }
+    }
+
+    // Reads back everything up to the last checkpoint, and cuts the journal back to that point
+    private void replay() throws IOException {
+        long durableLength = 0;
+        if (Files.exists(checkpointPath)) {
+            try (DataInputStream in = new DataInputStream(new FileInputStream(checkpointPath.toFile()))) {
+                if (in.readInt() != keys.length) {
+                    throw new IOException("Checkpoint " + checkpointPath + " is for a different list of positions");
+                }
+                durableLength = in.readLong();
+            }
+        }
+
+        if (Files.exists(journalPath)) {
+            try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+                if (channel.size() < durableLength) {
+                    throw new IOException("Journal " + journalPath + " is shorter than its checkpoint");
+                }
+                channel.truncate(durableLength);
+            }
+
+            try {
+                readRecords(durableLength, (index, key, value) -> {
+                    if (index < 0 || index >= keys.length || keys[index] != key) {
+                        throw new IOException("Journal " + journalPath + " does not match the prior depth's book");
+                    }
+                    if (!solved.get(index)) {
+                        solved.set(index);
+                        numSolved++;
+                    }
+                });
+            }
+            catch (EOFException e) {
+                throw new IOException("Journal " + journalPath + " ends before its checkpoint", e);
+            }
+        }
+    }
+
+    private void readRecords(long length, RecordVisitor visitor) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalPath.toFile()), 1 << 16))) {
+            for (long read = 0; read < length; read += recordBytes) {
+                visitor.visit(in.readInt(), in.readLong(), in.readLong());
+            }
+        }
+    }
+
+    /* Streams every solved position out of the journal, in the order they were recorded
+    A position is only passed on once, even if it was somehow recorded twice */
+    public void forEachRecord(RecordVisitor visitor) throws IOException {
+        synchronized (solved) {
+            journal.flush();
+            BitSet visited = new BitSet(keys.length);
+
+            readRecords(journalFile.getChannel().size(), (index, key, value) -> {
+                if (!visited.get(index)) {
+                    visited.set(index);
+                    visitor.visit(index, key, value);
+                }
+            });
+        }
+    }
+
+    // Saves one solved position. Safe to call from many threads
+    public void record(int index, long value) throws IOException {
+        synchronized (solved) {
+            journal.writeInt(index);
+            journal.writeLong(keys[index]);
+            journal.writeLong(value);
+
+            if (!solved.get(index)) {
+                solved.set(index);
+                numSolved++;
+            }
+        }
+    }
+
+    // Forces the journal to disk, then records its length. The checkpoint is replaced in one move, so it is never half written
+    public void checkpoint() throws IOException {
+        synchronized (solved) {
+            journal.flush();
+            journalFile.getChannel().force(false);
+            long durableLength = journalFile.getChannel().size();
+
+            Path tempPath = checkpointPath.resolveSibling(checkpointPath.getFileName() + ".tmp");
+            try (FileOutputStream file = new FileOutputStream(tempPath.toFile());
+                 DataOutputStream out = new DataOutputStream(file)) {
+                out.writeInt(keys.length);
+                out.writeLong(durableLength);
+                out.flush();
+                file.getChannel().force(false);
+            }
+            Files.move(tempPath, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (solved) {
+            journal.close();
+        }
+    }
+
+    // Once the book is written the journal is no longer needed
+    public void delete() throws IOException {
+        close();
+        Files.deleteIfExists(journalPath);
+        Files.deleteIfExists(checkpointPath);
+    }
+
+    // Opens the journal for a list of positions, resuming from an earlier journal if there is one
+    public BookJournal(File journalFolder, int depth, long[] initialKeys) throws IOException {
+        Files.createDirectories(journalFolder.toPath());
+        journalPath = journalFolder.toPath().resolve("depth" + depth + "Journal.bin");
+        checkpointPath = journalFolder.toPath().resolve("depth" + depth + "Checkpoint.bin");
+        keys = initialKeys;
+        solved = new BitSet(keys.length);
+
+        replay();
+
+        journalFile = new FileOutputStream(journalPath.toFile(), true);
+        journal = new DataOutputStream(new BufferedOutputStream(journalFile, 1 << 16));
+    }
+}
@@ -6,70 +6,284 @@ import miscHelpers.Utils;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.FileOutputStream;
+import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.HashSet;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.BitSet;
 
+/* Makes one depth of the opening book from the depth before it
+
+The positions to solve are listed on one thread first, then solved by a SolvePool.
+The evals are streamed from the journal into a SortedBookWriter, which sorts them on disk, so the file comes out
+exactly the same no matter how many threads solve, and memory only grows with the list of keys
+
+Every solved position goes into a BookJournal, which is checkpointed each time progress is reported.
+If a run is stopped, running it again with the same depth skips whatever the journal already holds
+
+With the canonical option, each position is stored only under the smaller of its key and its mirror's key,
+for CanonicalBookReader. Those books are made from the prior canonical depth, and go in their own folder
+
+A deep book can be split into shards, each run as its own process, on one machine or many:
+    java openingBookHelpers.BookMaker <depth> [threads] [canonical] shard <i>/<N>
+Shard i solves only the positions whose canonical key hashes into the i-th of N equal ranges,
+so a position and its mirror share a shard, and no position is solved by two shards.
+It writes its entries, sorted, into the shard folder (-DbookShards, or src/main/resources/bookShards by default).
+Nothing else is shared, so the folder can be on a network drive that every machine mounts.
+Once every shard file is there, BookMerger combines them into the book
+
+A depth with more entries than a tree holds is written as a sorted book for SortedBookReader instead.
+How many entries there will be is known from the keys, so the format is settled before anything is solved */
 public class BookMaker {
-    private static File findFile(int depth) {
-        String fileName = "depth" + depth + "Book.bin";
-        return Paths.get(Utils.getProjectRoot(), Utils.bookResources, fileName).toFile();
+    private static File journalFolder(boolean canonical) {
+        String resources = Utils.bookJournalResources;
+        return Paths.get(Utils.getProjectRoot(), canonical ? Utils.canonicalResources(resources) : resources).toFile();
+    }
+
+    // Every shard of a depth goes in one folder. The default is inside the project, which suits shards on one machine
+    static File shardFolder(int depth, boolean canonical) {
+        String resources = canonical ? Utils.canonicalResources(Utils.bookShardResources) : Utils.bookShardResources;
+        String shardRoot = System.getProperty("bookShards", Paths.get(Utils.getProjectRoot(), resources).toString());
+        return Paths.get(shardRoot, "depth" + depth).toFile();
+    }
+
+    static String shardName(int shard, int numShards) {
+        return "shard" + shard + "of" + numShards + ".bin";
+    }
+
+    // Which of numShards a position belongs to. A multiplicative hash spreads out keys which differ only in high bits
+    static int shardOf(long key, int numShards) {
+        long hash = Position.canonicalKey(key) * 0x9E3779B97F4A7C15L;
+        return (int) (((hash >>> 32) * numShards) >>> 32);
+    }
+
+    private static String bookResources(boolean canonical) {
+        return canonical ? Utils.canonicalResources(Utils.bookResources) : Utils.bookResources;
+    }
+
+    // The book already made for a depth, in either format
+    static File findFile(int depth, boolean canonical) {
+        return TreeReader.findBook(bookResources(canonical), depth);
+    }
+
+    // Where a book of numEntries entries goes: a tree book, or a sorted book if it is too big to be a tree
+    static File bookFile(int depth, boolean canonical, long numEntries) {
+        String fileName = numEntries > SortedBookWriter.maxEntries ? SortedBookReader.fileName(depth) : "depth" + depth + "Book.bin";
+        return Paths.get(Utils.getProjectRoot(), bookResources(canonical), fileName).toFile();
+    }
+
+    // Writes everything added to the writer in the format that bookFile picked
+    static void writeBook(SortedBookWriter bookWriter, File bookFile) throws IOException {
+        if (SortedBookReader.isSortedBook(bookFile)) {
+            bookWriter.writeSortedRun();
+        }
+        else {
+            bookWriter.writeContent();
+        }
+    }
+
+    /* The key of every child of the prior depth which needs an eval, in the order they get inserted into the tree
+    A mirror image only needs to be solved once, since its eval is the same
+    A canonical prior depth still lists every child, since the children of a mirror image are the mirrors of these children
+    Only lists the positions of one shard. Every shard reads the whole prior depth, which is quick next to solving
+
+    Children of the same position are solved next to each other, since they share subtrees in the table.
+    To keep that order without a set of boxed keys, the prior depth is read twice:
+        The first pass sorts the canonical key of every child into a primitive array and removes repeats
+        The second pass lists each child the first time its canonical key comes up, marking it off in a BitSet */
+    private static long[] listKeys(int depth, boolean canonical, int shard, int numShards) throws IOException {
+        long[] canonicalKeys = listCanonicalKeys(depth, canonical, shard, numShards);
+        BitSet listed = new BitSet(canonicalKeys.length);
+        long[] keys = new long[canonicalKeys.length];
+        int numKeys = 0;
+
+        for (long key : TreeReader.bookKeys(findFile(depth - 1, canonical))) {
+            Position priorPosition = new Position(key, depth - 1);
+
+            for (int col = 0; col < Position.WIDTH; col++) {
+                if (!priorPosition.canPlay(col) || priorPosition.isWinningMove(col)) {
+                    continue;
+                }
+
+                Position position = new Position(priorPosition);
+                position.playCol(col);
+                // Children of other shards aren't in the array
+                int index = Arrays.binarySearch(canonicalKeys, position.getCanonicalKey());
+                if (index >= 0 && !listed.get(index)) {
+                    listed.set(index);
+                    keys[numKeys++] = position.getKey();
+                }
+            }
+        }
+        return keys;
+    }
+
+    /* The canonical key of every child listKeys lists, sorted, with repeats (from transpositions and mirrors) removed
+    Whenever the array fills, it is sorted and compacted, and only grows if that frees less than half of it */
+    private static long[] listCanonicalKeys(int depth, boolean canonical, int shard, int numShards) throws IOException {
+        long[] keys = new long[1024];
+        int numKeys = 0;
+
+        for (long key : TreeReader.bookKeys(findFile(depth - 1, canonical))) {
+            Position priorPosition = new Position(key, depth - 1);
+
+            for (int col = 0; col < Position.WIDTH; col++) {
+                // We do not store illegal or winning positions in the book
+                if (!priorPosition.canPlay(col) || priorPosition.isWinningMove(col)) {
+                    continue;
+                }
+
+                Position position = new Position(priorPosition);
+                position.playCol(col);
+                long canonicalKey = position.getCanonicalKey();
+                if (numShards > 1 && shardOf(canonicalKey, numShards) != shard) {
+                    continue;
+                }
+
+                if (numKeys == keys.length) {
+                    numKeys = sortUnique(keys, numKeys);
+                    if (numKeys > keys.length / 2) {
+                        keys = Arrays.copyOf(keys, 2 * keys.length);
+                    }
+                }
+                keys[numKeys++] = canonicalKey;
+            }
+        }
+        return Arrays.copyOf(keys, sortUnique(keys, numKeys));
     }
 
-    // Takes the desired depth as a command line argument
+    // Sorts the first numKeys keys and removes repeats, returning how many are left
+    private static int sortUnique(long[] keys, int numKeys) {
+        Arrays.parallelSort(keys, 0, numKeys);
+        int numUnique = 0;
+        for (int i = 0; i < numKeys; i++) {
+            if (numUnique == 0 || keys[i] != keys[numUnique - 1]) {
+                keys[numUnique++] = keys[i];
+            }
+        }
+        return numUnique;
+    }
+
+    // How many entries insertSolved makes from these keys
+    private static long countEntries(long[] keys, boolean canonical) {
+        long numEntries = 0;
+        for (long key : keys) {
+            numEntries += canonical || key == Position.mirrorKey(key) ? 1 : 2;
+        }
+        return numEntries;
+    }
+
+    // Streams the solved positions from the journal into the writer: each key and its mirror, or only the canonical key
+    private static void insertSolved(BookJournal journal, SortedBookWriter bookWriter, boolean canonical) throws IOException {
+        journal.forEachRecord((index, key, eval) -> {
+            long mirrorKey = Position.mirrorKey(key);
+            if (canonical) {
+                bookWriter.insertNode(Math.min(key, mirrorKey), (byte) eval);
+                return;
+            }
+            bookWriter.insertNode(key, (byte) eval);
+
+            if (key != mirrorKey) {
+                bookWriter.insertNode(mirrorKey, (byte) eval);
+            }
+        });
+    }
+
+    /* Takes the desired depth as a command line argument, then optionally, in any order
+        the number of threads (all cores by default)
+        canonical, to make a canonical book
+        shard i/N, to make only shard i (counting from 0) of N */
     public static void main(String[] args) throws IOException {
-        assert args.length == 1;
+        assert args.length >= 1;
         int depth = Integer.parseInt(args[0]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean canonical = false;
+        int shard = 0;
+        int numShards = 1;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("canonical")) {
+                canonical = true;
+            }
+            else if (args[i].equals("shard") && i + 1 < args.length) {
+                String[] shardOf = args[++i].split("/");
+                shard = Integer.parseInt(shardOf[0]);
+                numShards = Integer.parseInt(shardOf[1]);
+            }
+            else {
+                threads = Integer.parseInt(args[i]);
+            }
+        }
+        if (numShards < 1 || shard < 0 || shard >= numShards) {
+            throw new IllegalArgumentException("No shard " + shard + " of " + numShards);
+        }
 
         long startTime = System.currentTimeMillis();
 
-        Solver solver = new Solver();
-        AVLTreeWriter treeWriter = new AVLTreeWriter();
-
         // Depth = 0 is a special case because there is no prior file
         if (depth == 0) {
+            if (numShards > 1) {
+                throw new IllegalArgumentException("Depth 0 is a single position, so it can't be sharded");
+            }
             Position blankPosition = new Position();
-            int eval = solver.solve(blankPosition);
-            treeWriter.insertNode(blankPosition.getKey(), (byte) eval);
+            int eval = new Solver().solve(blankPosition);
+
+            File bookFile = bookFile(depth, canonical, 1);
+            Files.createDirectories(bookFile.getParentFile().toPath());
+            try (SortedBookWriter bookWriter = new SortedBookWriter(bookFile)) {
+                bookWriter.insertNode(blankPosition.getKey(), (byte) eval);
+                bookWriter.writeContent();
+            }
         }
 
 		// We have depth > 0, so we need to read from the previous file
         else {
-            TreeReader reader = new TreeReader(findFile(depth - 1));
-            HashSet<Long> solvedKeys = new HashSet<>();
-
-            for (long key: reader) {
-                Position priorPosition = new Position(key, depth - 1);
-
-                for (int col = 0; col < Position.WIDTH; col++) {
-					// We do not store illegal or winning positions in the book
-                    if (!priorPosition.canPlay(col) || priorPosition.isWinningMove(col)) {
-						continue;
-					}
-
-					Position position = new Position(priorPosition);
-					position.playCol(col);
-
-					// Can already be in this hashmap due to transposition, or solving the mirror case
-					if (solvedKeys.contains(position.getKey())) {
-						continue;
-					}
-
-					int eval = solver.solve(position);
-					treeWriter.insertNode(position.getKey(), (byte) eval);
-					solvedKeys.add(position.getKey());
-
-					if (position.getKey() != position.getMirrorKey()) {
-						treeWriter.insertNode(position.getMirrorKey(), (byte) eval);
-						solvedKeys.add(position.getMirrorKey());
-					}
+            long[] keys = listKeys(depth, canonical, shard, numShards);
+            File journalFolder = journalFolder(canonical);
+            if (numShards > 1) {
+                journalFolder = new File(journalFolder, "shard" + shard + "of" + numShards);
+            }
+
+            long numEntries = countEntries(keys, canonical);
+            File bookFile = bookFile(depth, canonical, numEntries);
+            if (numShards == 1 && SortedBookReader.isSortedBook(bookFile)) {
+                System.out.println(numEntries + " entries are too many for a tree, so the book will be written as " + bookFile);
+            }
+
+            BookJournal journal = new BookJournal(journalFolder, depth, keys);
+            if (journal.getNumSolved() > 0) {
+                System.out.println("Resuming with " + journal.getNumSolved() + " positions already in the journal");
+            }
+            System.out.println("Solving " + (keys.length - journal.getNumSolved()) + " positions on " + threads + " threads");
+            SolvePool.solveAll(keys.length, threads, journal, "Solved", (solver, i) -> solver.solve(new Position(keys[i], depth)));
+
+            if (numShards > 1) {
+                // Written under another name and then renamed, so a shard file is only ever seen whole
+                File shardFolder = shardFolder(depth, canonical);
+                Files.createDirectories(shardFolder.toPath());
+                File shardFile = new File(shardFolder, shardName(shard, numShards));
+                File tempFile = new File(shardFolder, shardName(shard, numShards) + ".tmp");
+
+                try (SortedBookWriter bookWriter = new SortedBookWriter(tempFile)) {
+                    insertSolved(journal, bookWriter, canonical);
+                    bookWriter.writeSortedRun();
+                }
+                Files.move(tempFile.toPath(), shardFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                System.out.println("Wrote " + shardFile.length() / Long.BYTES + " entries to " + shardFile);
+            }
+            else {
+                Files.createDirectories(bookFile.getParentFile().toPath());
+                try (SortedBookWriter bookWriter = new SortedBookWriter(bookFile)) {
+                    insertSolved(journal, bookWriter, canonical);
+                    writeBook(bookWriter, bookFile);
                 }
             }
-        }
 
-		FileOutputStream out = new FileOutputStream(findFile(depth));
-        treeWriter.writeContent(out);
-        out.close();
+            // The book (or shard) is written, so the journal can go
+            journal.delete();
+            if (numShards > 1) {
+                Files.deleteIfExists(journalFolder.toPath());
+            }
+        }
 
         long endTime = System.currentTimeMillis();
         System.out.println("Total elapsed time in Milliseconds: " + (endTime-startTime));
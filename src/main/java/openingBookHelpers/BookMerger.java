@@ -0,0 +1,81 @@
+package openingBookHelpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/* Combines the shard files of one depth, made by BookMaker's shard option, into that depth's book
+
+    java openingBookHelpers.BookMerger <depth> [canonical]
+
+Refuses to write anything until every shard of the depth is there. Each shard is already sorted,
+so they are merged straight into the book in one pass. The shard files are left alone, and can be deleted afterwards
+The book is a tree if it fits, and otherwise a sorted book, the same as BookMaker would write */
+public class BookMerger {
+    private static final Pattern shardPattern = Pattern.compile("shard(\\d+)of(\\d+)\\.bin");
+
+    // The shard files in order, after checking that there is exactly one of each
+    static File[] findShards(File shardFolder) {
+        File[] files = shardFolder.listFiles();
+        if (files == null) {
+            throw new IllegalArgumentException("No shard folder " + shardFolder);
+        }
+
+        File[] shards = null;
+        for (File file : files) {
+            Matcher matcher = shardPattern.matcher(file.getName());
+            if (!matcher.matches()) {
+                continue;
+            }
+            int shard = Integer.parseInt(matcher.group(1));
+            int numShards = Integer.parseInt(matcher.group(2));
+
+            if (shards == null) {
+                shards = new File[numShards];
+            }
+            if (numShards != shards.length) {
+                throw new IllegalArgumentException("Shards of " + shards.length + " and of " + numShards + " are both in " + shardFolder);
+            }
+            if (shard >= numShards) {
+                throw new IllegalArgumentException("No shard " + shard + " of " + numShards + ": " + file);
+            }
+            shards[shard] = file;
+        }
+
+        if (shards == null) {
+            throw new IllegalArgumentException("No shards in " + shardFolder);
+        }
+        for (int shard = 0; shard < shards.length; shard++) {
+            if (shards[shard] == null) {
+                throw new IllegalArgumentException("Shard " + shard + " of " + shards.length + " is missing from " + shardFolder);
+            }
+        }
+        return shards;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int depth = Integer.parseInt(args[0]);
+        boolean canonical = args.length > 1 && args[1].equals("canonical");
+        long startTime = System.currentTimeMillis();
+
+        File[] shards = findShards(BookMaker.shardFolder(depth, canonical));
+        long numEntries = 0;
+        for (File shard : shards) {
+            numEntries += shard.length() / Long.BYTES;
+        }
+        File bookFile = BookMaker.bookFile(depth, canonical, numEntries);
+        Files.createDirectories(bookFile.getParentFile().toPath());
+
+        try (SortedBookWriter bookWriter = new SortedBookWriter(bookFile, 1)) {
+            for (File shard : shards) {
+                bookWriter.addSortedRun(shard);
+            }
+            BookMaker.writeBook(bookWriter, bookFile);
+        }
+
+        System.out.println("Merged " + shards.length + " shards into " + bookFile + " (" + numEntries +
+                " entries) in " + (System.currentTimeMillis() - startTime) + " ms");
+    }
+}
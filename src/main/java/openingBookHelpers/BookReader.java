@@ -0,0 +1,9 @@
+package openingBookHelpers;
+
+import java.io.IOException;
+
+// Looks up the eval of a position in one depth of the opening book
+// Throws an IllegalArgumentException if the key is not in the book
+public interface BookReader {
+    int get(long searchKey) throws IllegalArgumentException, IOException;
+}
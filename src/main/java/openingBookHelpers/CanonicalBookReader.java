@@ -0,0 +1,34 @@
+package openingBookHelpers;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import liveSolverClasses.Position;
+
+/* Reads a book which holds each position only once, under the smaller of its key and its mirror's key
+A position and its mirror always have the same eval, so the full book stores almost everything twice.
+This wraps a reader of any format, and turns each key into the canonical one before looking it up */
+public class CanonicalBookReader implements BookReader {
+    private final BookReader reader;
+
+    @Override
+    public int get(long searchKey) throws IllegalArgumentException, IOException {
+        return reader.get(Position.canonicalKey(searchKey));
+    }
+
+    // Keeps only the canonical entries out of packed entries (key << 8 | eval & 0xFF)
+    public static long[] canonicalEntries(long[] entries) {
+        long[] canonical = new long[entries.length];
+        int numCanonical = 0;
+        for (long entry : entries) {
+            if (Position.canonicalKey(entry >>> 8) == entry >>> 8) {
+                canonical[numCanonical++] = entry;
+            }
+        }
+        return Arrays.copyOf(canonical, numCanonical);
+    }
+
+    public CanonicalBookReader(BookReader initialReader) {
+        reader = initialReader;
+    }
+}
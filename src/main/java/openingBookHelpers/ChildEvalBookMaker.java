@@ -0,0 +1,116 @@
+package openingBookHelpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import liveSolverClasses.Position;
+import liveSolverClasses.Solver;
+import miscHelpers.Utils;
+
+/* Makes the books that ChildEvalBookReader reads, one per depth of the tree book, into their own folder
+
+    java openingBookHelpers.ChildEvalBookMaker [threads]
+
+The children of each depth are looked up in the next depth's book. The last depth has no next book,
+so its children are solved here on a pool of threads (all cores by default), which takes most of the time.
+That is the point of these books: the server never has to solve those children live
+Those solves go into a BookJournal, so running it again after it was stopped picks up where it left off */
+public class ChildEvalBookMaker {
+    // The last depth's journal, apart from BookMaker's
+    private static final File journalFolder = Paths.get(Utils.getProjectRoot(), Utils.bookJournalResources, "childEvals").toFile();
+
+    private static File bookFile(int depth) {
+        return Paths.get(Utils.getProjectRoot(), Utils.childEvalBookResources, "depth" + depth + "Book.bin").toFile();
+    }
+
+    // Looks up every child in the next depth's book, the same way SolveHandler.mixedAnalyze would
+    private static long[] lookUpChildren(long[] sortedEntries, int depth, BookReader nextDepth) throws IOException {
+        long[] packed = new long[sortedEntries.length];
+        int[] childEvals = new int[Position.WIDTH];
+
+        for (int i = 0; i < sortedEntries.length; i++) {
+            Position position = new Position(sortedEntries[i] >>> 8, depth);
+
+            for (int col = 0; col < Position.WIDTH; col++) {
+                if (!position.canPlay(col)) {
+                    childEvals[col] = Solver.illegalMove;
+                    continue;
+                }
+                Position child = new Position(position);
+                child.playCol(col);
+
+                // Winning positions are not in the book. This is the eval SolveHandler.mixedSolve gives them
+                if (child.priorPlayerHasWon()) {
+                    childEvals[col] = (child.movesPlayed - Position.WIDTH * Position.HEIGHT - 2) / 2;
+                }
+                else {
+                    childEvals[col] = nextDepth.get(child.getKey());
+                }
+            }
+            packed[i] = ChildEvalBookReader.pack((byte) sortedEntries[i], childEvals);
+        }
+        return packed;
+    }
+
+    // Solves every child of the last depth with Solver.analyze on a SolvePool, keeping each position's packed evals in the journal
+    private static long[] solveChildren(long[] keys, byte[] evals, int depth, int threads, BookJournal journal) throws IOException {
+        if (journal.getNumSolved() > 0) {
+            System.out.println("Resuming with " + journal.getNumSolved() + " positions already in the journal");
+        }
+
+        SolvePool.solveAll(keys.length, threads, journal, "Analyzed", (solver, i) -> {
+            int[] scores = solver.analyze(new Position(keys[i], depth));
+
+            // Scores are from this position's point of view, and each child's eval is from the child's
+            int[] childEvals = new int[Position.WIDTH];
+            for (int col = 0; col < Position.WIDTH; col++) {
+                childEvals[col] = scores[col] == Solver.illegalMove ? Solver.illegalMove : -scores[col];
+            }
+            return ChildEvalBookReader.pack(evals[i], childEvals);
+        });
+
+        long[] packed = new long[keys.length];
+        journal.forEachRecord((index, key, value) -> packed[index] = value);
+        return packed;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int maxBookDepth = TreeReader.getMaxBookDepth();
+        Files.createDirectories(Paths.get(Utils.getProjectRoot(), Utils.childEvalBookResources));
+
+        for (int depth = 0; depth <= maxBookDepth; depth++) {
+            long startTime = System.currentTimeMillis();
+
+            // Packed entries sort by key
+            long[] entries = TreeReader.readBookEntries(TreeReader.findBook(Utils.bookResources, depth));
+            Arrays.sort(entries);
+
+            long[] keys = new long[entries.length];
+            byte[] evals = new byte[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                keys[i] = entries[i] >>> 8;
+                evals[i] = (byte) entries[i];
+            }
+            File childEvalBook = bookFile(depth);
+
+            if (depth < maxBookDepth) {
+                long[] nextEntries = TreeReader.readBookEntries(TreeReader.findBook(Utils.bookResources, depth + 1));
+                ChildEvalBookReader.writeBook(keys, lookUpChildren(entries, depth, new HashedBookReader(nextEntries, false)), childEvalBook);
+            }
+            else {
+                BookJournal journal = new BookJournal(journalFolder, depth, keys);
+                ChildEvalBookReader.writeBook(keys, solveChildren(keys, evals, depth, threads, journal), childEvalBook);
+
+                // The book is written, so the journal can go
+                journal.delete();
+            }
+
+            System.out.println("Wrote depth " + depth + " with " + entries.length + " positions, " + childEvalBook.length() +
+                    " bytes, in " + (System.currentTimeMillis() - startTime) + " ms");
+        }
+    }
+}
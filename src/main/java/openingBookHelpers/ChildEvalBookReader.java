@@ -0,0 +1,124 @@
+package openingBookHelpers;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import liveSolverClasses.Position;
+import liveSolverClasses.Solver;
+
+/* Reads a book where each position also holds the evals of all of its children
+So one lookup answers a whole /analyze/ request, instead of one lookup (or one live solve, at the last depth) per column
+
+Each entry is two longs: the key, then the packed evals
+    The lowest 6 bits are the position's own eval, then 6 bits for each column's child, column 0 first
+    Every field is two's complement. A full column is stored as illegalChild
+Each child's eval is what SolveHandler.mixedSolve gives for it, from the point of view of the player to move in the child.
+The entries are laid out in Eytzinger order, the same as MappedBookReader */
+public class ChildEvalBookReader implements BookReader {
+    public static final int bytesPerEntry = 2 * Long.BYTES;
+    private static final int evalBits = 6;
+
+    // Evals are between -21 and 21, so the smallest 6 bit value is free to mark a full column
+    private static final int illegalChild = -(1 << (evalBits - 1));
+
+    private final LongBuffer entries;
+    private final int numEntries;
+
+    private static int unpack(long packed, int field) {
+        return (int) (packed << (64 - evalBits * (field + 1)) >> (64 - evalBits));
+    }
+
+    // Packs a position's eval with the evals of its children, using Solver.illegalMove for a full column
+    public static long pack(int eval, int[] childEvals) {
+        long packed = eval & ((1 << evalBits) - 1);
+        for (int col = 0; col < Position.WIDTH; col++) {
+            int childEval = childEvals[col] == Solver.illegalMove ? illegalChild : childEvals[col];
+            packed |= (long) (childEval & ((1 << evalBits) - 1)) << (evalBits * (col + 1));
+        }
+        return packed;
+    }
+
+    // Where a key is, or -1 if it is not in the book
+    private int find(long searchKey) {
+        int index = 1;
+        while (index <= numEntries) {
+            long key = entries.get(2 * (index - 1));
+
+            if (key == searchKey) {
+                return index;
+            }
+            index = 2 * index + (key < searchKey ? 1 : 0);
+        }
+        return -1;
+    }
+
+    @Override
+    public int get(long searchKey) throws IllegalArgumentException {
+        int index = find(searchKey);
+        if (index == -1) {
+            throw new IllegalArgumentException("No key of " + searchKey + " found");
+        }
+        return unpack(entries.get(2 * index - 1), 0);
+    }
+
+    // Fills childEvals with the eval of each child, or Solver.illegalMove for a full column
+    public void getChildren(long searchKey, int[] childEvals) throws IllegalArgumentException {
+        int index = find(searchKey);
+        if (index == -1) {
+            throw new IllegalArgumentException("No key of " + searchKey + " found");
+        }
+
+        long packed = entries.get(2 * index - 1);
+        for (int col = 0; col < Position.WIDTH; col++) {
+            int childEval = unpack(packed, col + 1);
+            childEvals[col] = childEval == illegalChild ? Solver.illegalMove : childEval;
+        }
+    }
+
+    // Fills the layout in order of a walk of the balanced tree, so sorted entries land in Eytzinger order
+    private static int fillLayout(long[] sortedKeys, long[] sortedPacked, long[] layout, int next, int index) {
+        if (index <= sortedKeys.length) {
+            next = fillLayout(sortedKeys, sortedPacked, layout, next, 2 * index);
+            layout[2 * (index - 1)] = sortedKeys[next];
+            layout[2 * index - 1] = sortedPacked[next++];
+            next = fillLayout(sortedKeys, sortedPacked, layout, next, 2 * index + 1);
+        }
+        return next;
+    }
+
+    // Writes keys, which must be sorted, each with its packed evals (from pack) as a book that this class can read
+    public static void writeBook(long[] sortedKeys, long[] sortedPacked, File bookFile) throws IOException {
+        for (int i = 1; i < sortedKeys.length; i++) {
+            if (sortedKeys[i] <= sortedKeys[i - 1]) {
+                throw new IllegalArgumentException("Keys must be sorted with no repeats, but " + sortedKeys[i] + " follows " + sortedKeys[i - 1]);
+            }
+        }
+        long[] layout = new long[2 * sortedKeys.length];
+        fillLayout(sortedKeys, sortedPacked, layout, 0, 1);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(bookFile)))) {
+            for (long value : layout) {
+                out.writeLong(value);
+            }
+        }
+    }
+
+    public ChildEvalBookReader(File bookFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(bookFile.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % bytesPerEntry != 0 || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a child eval book file: " + bookFile);
+            }
+
+            // The mapping stays valid after the channel is closed
+            entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).asLongBuffer();
+            numEntries = (int) (size / bytesPerEntry);
+        }
+    }
+}
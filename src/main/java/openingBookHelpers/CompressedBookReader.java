@@ -0,0 +1,260 @@
+package openingBookHelpers;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/* Reads a compressed book, where keys are sorted and split into blocks of 64
+Only the first key (and where it starts) of each block is kept in memory, so a lookup binary searches
+those, then decodes the one block that could hold the key
+
+The file is a header, the block index, then the blocks:
+    Header: the number of entries, then the number of blocks (two ints)
+    Index: for each block, its first key and the bit where the block starts (two longs)
+    Each block: the Rice parameter k (6 bits), then for each entry
+        The gap from the previous key (none for the first key), Rice coded:
+            gap >>> k in unary (that many 1's, then a 0), then the low k bits of the gap
+        The eval (6 bits, two's complement)
+Keys which are close together take few bits, so an entry is about 4 bytes instead of 10.
+The data is memory mapped and read without moving the buffer's position, so threads can share a reader */
+public class CompressedBookReader implements BookReader, Iterable<Long> {
+    public static final int entriesPerBlock = 64;
+    private static final int evalBits = 6;
+    private static final int parameterBits = 6;
+
+    private final int numEntries;
+    private final long[] blockKeys;
+    private final long[] blockStarts;
+    private final ByteBuffer data;
+
+    // Reads count (up to 57) bits starting at some bit of the data. Blocks are padded so this never runs off the end
+    private long readBits(long bit, int count) {
+        long window = data.getLong((int) (bit >>> 3)) << (bit & 7);
+        return window >>> (64 - count);
+    }
+
+    // Counts the 1's before the next 0
+    private int readUnary(long bit) {
+        int ones = 0;
+        while (true) {
+            long window = data.getLong((int) (bit >>> 3)) << (bit & 7);
+            int run = Long.numberOfLeadingZeros(~window);
+
+            // Only 57 bits of each window are trustworthy, after the shift
+            if (run < 57) {
+                return ones + run;
+            }
+            ones += 57;
+            bit += 57;
+        }
+    }
+
+    // Shift up to the sign bit and back, so negative evals stay negative
+    private static int decodeEval(long bits) {
+        return (int) (bits << (64 - evalBits) >> (64 - evalBits));
+    }
+
+    // Reads the low k bits of a gap. Shifting by 64 does nothing in Java, so k = 0 needs its own case
+    private long readLowBits(long bit, int k) {
+        return k == 0 ? 0 : readBits(bit, k);
+    }
+
+    // The block that would hold a key, or -1 if it is before every key
+    private int findBlock(long searchKey) {
+        int block = Arrays.binarySearch(blockKeys, searchKey);
+        return block >= 0 ? block : -block - 2;
+    }
+
+    private int blockSize(int block) {
+        return Math.min(entriesPerBlock, numEntries - block * entriesPerBlock);
+    }
+
+    @Override
+    public int get(long searchKey) throws IllegalArgumentException {
+        int block = findBlock(searchKey);
+
+        if (block >= 0) {
+            long bit = blockStarts[block];
+            int k = (int) readBits(bit, parameterBits);
+            bit += parameterBits;
+
+            long key = blockKeys[block];
+            for (int i = 0; i < blockSize(block) && key <= searchKey; i++) {
+                if (i > 0) {
+                    int quotient = readUnary(bit);
+                    bit += quotient + 1;
+                    key += ((long) quotient << k) | readLowBits(bit, k);
+                    bit += k;
+                }
+
+                if (key == searchKey) {
+                    return decodeEval(readBits(bit, evalBits));
+                }
+                bit += evalBits;
+            }
+        }
+        throw new IllegalArgumentException("No key of " + searchKey + " found");
+    }
+
+    // Lets us iterate over all keys in the book, in sorted order
+    @Override
+    public Iterator<Long> iterator() {
+        return new Iterator<>() {
+            private int index = 0;
+            private long bit;
+            private long key;
+            private int k;
+
+            @Override
+            public boolean hasNext() {
+                return index < numEntries;
+            }
+
+            @Override
+            public Long next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                if (index % entriesPerBlock == 0) {
+                    int block = index / entriesPerBlock;
+                    bit = blockStarts[block];
+                    k = (int) readBits(bit, parameterBits);
+                    bit += parameterBits;
+                    key = blockKeys[block];
+                }
+                else {
+                    int quotient = readUnary(bit);
+                    bit += quotient + 1;
+                    key += ((long) quotient << k) | readLowBits(bit, k);
+                    bit += k;
+                }
+
+                // Skip over the eval
+                bit += evalBits;
+                index++;
+                return key;
+            }
+        };
+    }
+
+    // Packs bits into bytes, most significant bit first
+    private static class BitWriter {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private long buffer;
+        private int buffered;
+        private long bitsWritten;
+
+        void write(long bits, int count) {
+            for (int i = count - 1; i >= 0; i--) {
+                buffer = (buffer << 1) | ((bits >>> i) & 1);
+                if (++buffered == 8) {
+                    out.write((int) buffer);
+                    buffer = 0;
+                    buffered = 0;
+                }
+            }
+            bitsWritten += count;
+        }
+
+        void writeUnary(long ones) {
+            for (long i = 0; i < ones; i++) {
+                write(1, 1);
+            }
+            write(0, 1);
+        }
+
+        // Flushes the last partial byte, plus 8 empty bytes so that readBits can always read a whole long
+        byte[] finish() {
+            write(0, (8 - buffered) % 8 + 64);
+            return out.toByteArray();
+        }
+    }
+
+    // The Rice parameter which suits a block: about the log of the average gap
+    private static int riceParameter(long[] sorted, int start, int end) {
+        if (end - start < 2) {
+            return 0;
+        }
+        long averageGap = ((sorted[end - 1] >>> 8) - (sorted[start] >>> 8)) / (end - start - 1);
+        return Math.max(0, 63 - Long.numberOfLeadingZeros(Math.max(averageGap, 1)));
+    }
+
+    // Writes packed entries (key << 8 | eval & 0xFF) in any order as a book that this class can read
+    public static void writeBook(long[] entries, File bookFile) throws IOException {
+        long[] sorted = entries.clone();
+        Arrays.sort(sorted);
+
+        int numBlocks = (sorted.length + entriesPerBlock - 1) / entriesPerBlock;
+        long[] blockKeys = new long[numBlocks];
+        long[] blockStarts = new long[numBlocks];
+        BitWriter bits = new BitWriter();
+
+        for (int block = 0; block < numBlocks; block++) {
+            int start = block * entriesPerBlock;
+            int end = Math.min(start + entriesPerBlock, sorted.length);
+            int k = riceParameter(sorted, start, end);
+
+            blockKeys[block] = sorted[start] >>> 8;
+            blockStarts[block] = bits.bitsWritten;
+            bits.write(k, parameterBits);
+
+            for (int i = start; i < end; i++) {
+                if (i > start) {
+                    long gap = (sorted[i] >>> 8) - (sorted[i - 1] >>> 8);
+                    if (gap == 0) {
+                        throw new IllegalArgumentException("Book already contains a key of " + (sorted[i] >>> 8));
+                    }
+                    bits.writeUnary(gap >>> k);
+                    bits.write(gap, k);
+                }
+                bits.write(sorted[i], evalBits);
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(bookFile)))) {
+            out.writeInt(sorted.length);
+            out.writeInt(numBlocks);
+            for (int block = 0; block < numBlocks; block++) {
+                out.writeLong(blockKeys[block]);
+                out.writeLong(blockStarts[block]);
+            }
+            out.write(bits.finish());
+        }
+    }
+
+    public CompressedBookReader(File bookFile) throws IOException {
+        int numBlocks;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(bookFile))) {
+            numEntries = in.readInt();
+            numBlocks = in.readInt();
+
+            blockKeys = new long[numBlocks];
+            blockStarts = new long[numBlocks];
+            for (int block = 0; block < numBlocks; block++) {
+                blockKeys[block] = in.readLong();
+                blockStarts[block] = in.readLong();
+            }
+        }
+
+        // The blocks are mapped, and the mapping stays valid after the channel is closed
+        long dataStart = 2L * Integer.BYTES + 2L * Long.BYTES * numBlocks;
+        try (FileChannel channel = FileChannel.open(bookFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() - dataStart > Integer.MAX_VALUE) {
+                throw new IOException("Compressed book is too large to map: " + bookFile);
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, dataStart, channel.size() - dataStart);
+        }
+    }
+}
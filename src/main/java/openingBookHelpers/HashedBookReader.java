@@ -0,0 +1,228 @@
+package openingBookHelpers;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import miscHelpers.Utils;
+
+/* Holds the whole opening book in memory, so a lookup is a hash and one or two array reads
+Every entry is one long, packed as key << 8 | eval & 0xFF, with no boxing
+
+Keys of different depths never match (the key holds the mask, so it holds the number of moves played),
+so one reader can hold every depth at once. There are two layouts:
+    Open addressing: a power of two number of slots, at most 3/4 full, searched with linear probing
+    Minimal perfect hashing: exactly one slot per entry, plus one int for every few entries.
+        Each key hashes to a bucket, and each bucket has a displacement chosen when building,
+        which sends every key in the bucket to its own slot (the "hash and displace" method)
+The perfect hash takes about 9.3 bytes per entry, where open addressing takes between 11 and 22.
+But it reads the displacement before the slot, so lookups are a little slower, and building takes longer */
+public class HashedBookReader implements BookReader {
+    // Marks an unused slot. Packed keys are under 2^57, so no entry is ever negative
+    private static final long emptySlot = -1L;
+
+    // Average number of keys per bucket of the perfect hash
+    // More keys per bucket saves memory, but each extra key makes the last buckets much harder to place
+    private static final int keysPerBucket = 3;
+
+    private final long[] slots;
+    private final int[] displacements;
+    private final int slotMask;
+
+    public final boolean minimalPerfect;
+    public final int numEntries;
+
+    // Murmur3's 64 bit finalizer, which mixes every bit of the input into every bit of the output
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    // Maps a hash onto [0, range) with a multiply instead of a division
+    private static int reduce(long hash, int range) {
+        return (int) (((hash >>> 32) * range) >>> 32);
+    }
+
+    /* The perfect hash mixes each key once. The low half of the hash picks the bucket,
+    and the hash XORed with a mix of the displacement is mixed again to pick the slot.
+    Without the second mix, two keys whose top bits match would share a slot under every displacement,
+    since the XOR flips the same bits of both */
+    private static int bucket(long hash, int numBuckets) {
+        return reduce(hash << 32, numBuckets);
+    }
+
+    private static int displacedSlot(long hash, long displacementHash, int numSlots) {
+        return reduce(mix(hash ^ displacementHash), numSlots);
+    }
+
+    public long bytesUsed() {
+        return (long) slots.length * Long.BYTES + (displacements == null ? 0 : (long) displacements.length * Integer.BYTES);
+    }
+
+    @Override
+    public int get(long searchKey) throws IllegalArgumentException {
+        if (minimalPerfect) {
+            if (numEntries != 0) {
+                long hash = mix(searchKey);
+                int displacement = displacements[bucket(hash, displacements.length)];
+                long entry = slots[displacedSlot(hash, mix(displacement), slots.length)];
+
+                if (entry >>> 8 == searchKey) {
+                    return (byte) entry;
+                }
+            }
+        }
+        else {
+            for (int slot = (int) mix(searchKey) & slotMask; slots[slot] != emptySlot; slot = (slot + 1) & slotMask) {
+                if (slots[slot] >>> 8 == searchKey) {
+                    return (byte) slots[slot];
+                }
+            }
+        }
+        throw new IllegalArgumentException("No key of " + searchKey + " found");
+    }
+
+    private void insertOpenAddressing(long entry) {
+        int slot = (int) mix(entry >>> 8) & slotMask;
+        while (slots[slot] != emptySlot) {
+            if (slots[slot] >>> 8 == entry >>> 8) {
+                throw new IllegalArgumentException("Book already contains a key of " + (entry >>> 8));
+            }
+            slot = (slot + 1) & slotMask;
+        }
+        slots[slot] = entry;
+    }
+
+    /* Places the biggest buckets first, while the table is still empty and they fit easily
+    For each bucket, try displacements in order until all of its keys land on distinct empty slots */
+    private void buildPerfectHash(long[] entries) {
+        int numBuckets = displacements.length;
+
+        // Sort the entries (and their hashes) by bucket, so each bucket is one run of the array
+        long[] bucketed = new long[entries.length];
+        long[] hashes = new long[entries.length];
+        int[] bucketStarts = new int[numBuckets + 1];
+        for (long entry : entries) {
+            bucketStarts[bucket(mix(entry >>> 8), numBuckets) + 1]++;
+        }
+        for (int i = 0; i < numBuckets; i++) {
+            bucketStarts[i + 1] += bucketStarts[i];
+        }
+        int[] filled = Arrays.copyOf(bucketStarts, numBuckets);
+        for (long entry : entries) {
+            long hash = mix(entry >>> 8);
+            int index = filled[bucket(hash, numBuckets)]++;
+            bucketed[index] = entry;
+            hashes[index] = hash;
+        }
+
+        // Order the buckets by size, biggest first, with a counting sort
+        int maxBucketSize = 0;
+        for (int i = 0; i < numBuckets; i++) {
+            maxBucketSize = Math.max(maxBucketSize, bucketStarts[i + 1] - bucketStarts[i]);
+        }
+        int[][] bucketsBySize = new int[maxBucketSize + 1][];
+        int[] sizeCounts = new int[maxBucketSize + 1];
+        for (int i = 0; i < numBuckets; i++) {
+            sizeCounts[bucketStarts[i + 1] - bucketStarts[i]]++;
+        }
+        for (int size = 0; size <= maxBucketSize; size++) {
+            bucketsBySize[size] = new int[sizeCounts[size]];
+            sizeCounts[size] = 0;
+        }
+        for (int i = 0; i < numBuckets; i++) {
+            int size = bucketStarts[i + 1] - bucketStarts[i];
+            bucketsBySize[size][sizeCounts[size]++] = i;
+        }
+
+        // Which slots are taken, one bit each, so that trying a displacement mostly stays in the CPU caches
+        long[] taken = new long[(slots.length + 63) / 64];
+        int[] chosenSlots = new int[maxBucketSize];
+        for (int size = maxBucketSize; size > 0; size--) {
+            for (int bucket : bucketsBySize[size]) {
+                int start = bucketStarts[bucket];
+
+                // Two copies of a key would never land on distinct slots
+                for (int i = start; i < start + size; i++) {
+                    for (int j = start; j < i; j++) {
+                        if (bucketed[i] >>> 8 == bucketed[j] >>> 8) {
+                            throw new IllegalArgumentException("Book already contains a key of " + (bucketed[i] >>> 8));
+                        }
+                    }
+                }
+
+                for (int displacement = 0; ; displacement++) {
+                    long displacementHash = mix(displacement);
+
+                    // Every key needs an empty slot, and no two keys of the bucket can share one
+                    boolean fits = true;
+                    for (int i = 0; i < size && fits; i++) {
+                        chosenSlots[i] = displacedSlot(hashes[start + i], displacementHash, slots.length);
+                        fits = (taken[chosenSlots[i] >>> 6] & (1L << chosenSlots[i])) == 0;
+                        for (int j = 0; j < i && fits; j++) {
+                            fits = chosenSlots[j] != chosenSlots[i];
+                        }
+                    }
+
+                    if (fits) {
+                        for (int i = 0; i < size; i++) {
+                            taken[chosenSlots[i] >>> 6] |= 1L << chosenSlots[i];
+                            slots[chosenSlots[i]] = bucketed[start + i];
+                        }
+                        displacements[bucket] = displacement;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    // Reads every depth of a tree format book folder, up to and including maxBookDepth, into one reader
+    public static HashedBookReader loadTreeBooks(String bookResources, int maxBookDepth, boolean useMinimalPerfectHash) throws IOException {
+        long[][] depthEntries = new long[maxBookDepth + 1][];
+        int totalEntries = 0;
+        for (int depth = 0; depth <= maxBookDepth; depth++) {
+            depthEntries[depth] = TreeReader.readBookEntries(TreeReader.findBook(bookResources, depth));
+            totalEntries += depthEntries[depth].length;
+        }
+
+        long[] entries = new long[totalEntries];
+        int filled = 0;
+        for (long[] depth : depthEntries) {
+            System.arraycopy(depth, 0, entries, filled, depth.length);
+            filled += depth.length;
+        }
+        return new HashedBookReader(entries, useMinimalPerfectHash);
+    }
+    public static HashedBookReader loadTreeBooks(int maxBookDepth, boolean useMinimalPerfectHash) throws IOException {
+        return loadTreeBooks(Utils.bookResources, maxBookDepth, useMinimalPerfectHash);
+    }
+
+    // Takes packed entries (key << 8 | eval & 0xFF) in any order, like TreeReader.readEntries gives
+    public HashedBookReader(long[] entries, boolean useMinimalPerfectHash) {
+        minimalPerfect = useMinimalPerfectHash;
+        numEntries = entries.length;
+
+        if (minimalPerfect) {
+            slots = new long[numEntries];
+            displacements = new int[Math.max(numEntries / keysPerBucket, 1)];
+            slotMask = 0;
+            Arrays.fill(slots, emptySlot);
+            buildPerfectHash(entries);
+        }
+        else {
+            // Smallest power of two which keeps the table at most 3/4 full
+            int capacity = Integer.highestOneBit(Math.max(numEntries + numEntries / 3, 1)) << 1;
+            slots = new long[capacity];
+            displacements = null;
+            slotMask = capacity - 1;
+            Arrays.fill(slots, emptySlot);
+            for (long entry : entries) {
+                insertOpenAddressing(entry);
+            }
+        }
+    }
+}
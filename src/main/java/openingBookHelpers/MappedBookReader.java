@@ -0,0 +1,78 @@
+package openingBookHelpers;
+
+import java.io.DataOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/* Reads a book file which is memory mapped once, so lookups make no system calls and allocate nothing
+Reads never move the buffer's position, so any number of threads can share one reader
+
+Each entry is one long: the key shifted up 8 bits, and the eval in the lowest byte
+The entries are sorted, then laid out in Eytzinger order (the order of a breadth first walk of a balanced tree)
+    The root is entry 1 (stored first), and the children of entry i are entries 2i and 2i+1
+So the first few levels of the search always hit the same few cache lines, instead of jumping around a sorted array */
+public class MappedBookReader implements BookReader {
+    public static final int bytesPerEntry = Long.BYTES;
+
+    private final LongBuffer entries;
+    private final int numEntries;
+
+    @Override
+    public int get(long searchKey) throws IllegalArgumentException {
+        int index = 1;
+        while (index <= numEntries) {
+            long entry = entries.get(index - 1);
+            long key = entry >>> 8;
+
+            if (key == searchKey) {
+                return (byte) entry;
+            }
+            index = 2 * index + (key < searchKey ? 1 : 0);
+        }
+        throw new IllegalArgumentException("No key of " + searchKey + " found");
+    }
+
+    // Fills the layout in order of a walk of the balanced tree, so sorted entries land in Eytzinger order
+    // Returns the next sorted entry to place
+    private static int fillLayout(long[] sorted, long[] layout, int next, int index) {
+        if (index <= sorted.length) {
+            next = fillLayout(sorted, layout, next, 2 * index);
+            layout[index - 1] = sorted[next++];
+            next = fillLayout(sorted, layout, next, 2 * index + 1);
+        }
+        return next;
+    }
+
+    // Writes packed entries (key << 8 | eval & 0xFF) in any order as a book that this class can read
+    public static void writeBook(long[] entries, File bookFile) throws IOException {
+        long[] sorted = entries.clone();
+        Arrays.sort(sorted);
+        long[] layout = new long[sorted.length];
+        fillLayout(sorted, layout, 0, 1);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(bookFile)))) {
+            for (long entry : layout) {
+                out.writeLong(entry);
+            }
+        }
+    }
+
+    public MappedBookReader(File bookFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(bookFile.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % bytesPerEntry != 0 || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a mapped book file: " + bookFile);
+            }
+
+            // The mapping stays valid after the channel is closed
+            entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).asLongBuffer();
+            numEntries = (int) (size / bytesPerEntry);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package openingBookHelpers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import liveSolverClasses.ConcurrentTranspositionTable;
+import liveSolverClasses.Solver;
+
+/* Solves a list of positions on a pool of threads, for BookMaker and ChildEvalBookMaker
+Each thread has its own solver, and they all share one table. Every answer goes into a BookJournal,
+which is checkpointed each time progress is reported, so a run that dies picks up where it left off */
+class SolvePool {
+    // Each thread takes this many positions at once. Neighbors in the list often share subtrees in the table
+    private static final int chunkSize = 16;
+    private static final long progressMillis = 10_000;
+
+    // Works out the value the journal records for the position at index
+    interface Job {
+        long solve(Solver solver, int index);
+    }
+
+    // Runs the job on every position the journal doesn't already hold. verb names the work in the progress reports
+    static void solveAll(int numPositions, int threads, BookJournal journal, String verb, Job job) throws IOException {
+        ConcurrentTranspositionTable table = new ConcurrentTranspositionTable();
+        AtomicInteger nextChunk = new AtomicInteger();
+        int resumedCount = journal.getNumSolved();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            workers.add(pool.submit(() -> {
+                Solver solver = new Solver(table);
+                for (int start = nextChunk.getAndAdd(chunkSize); start < numPositions; start = nextChunk.getAndAdd(chunkSize)) {
+                    for (int i = start; i < Math.min(start + chunkSize, numPositions); i++) {
+                        if (!journal.isSolved(i)) {
+                            journal.record(i, job.solve(solver, i));
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        pool.shutdown();
+
+        // Report progress and checkpoint the journal until every thread is done
+        // The rate and ETA only count positions solved by this run, not ones read back from the journal
+        long startTime = System.currentTimeMillis();
+        try {
+            while (!pool.awaitTermination(progressMillis, TimeUnit.MILLISECONDS)) {
+                journal.checkpoint();
+                int solved = journal.getNumSolved();
+                int solvedNow = solved - resumedCount;
+                long elapsed = System.currentTimeMillis() - startTime;
+                String eta = solvedNow == 0 ? "unknown" : (elapsed * (numPositions - solved) / solvedNow / 1000) + " s";
+                System.out.printf("%s %d of %d positions (%.1f%%), %.0f per second, ETA %s%n", verb, solved, numPositions,
+                        100.0 * solved / numPositions, 1000.0 * solvedNow / elapsed, eta);
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        }
+        catch (Exception e) {
+            pool.shutdownNow();
+            throw new IOException("Solving on the pool failed", e);
+        }
+        journal.checkpoint();
+    }
+}
@@ -0,0 +1,121 @@
+package openingBookHelpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/* Reads a book which is too big for the tree format, whose left weights only fit SortedBookWriter.maxEntries entries
+
+The file is every entry packed into a long (key << 8 | eval & 0xFF) in increasing order, the same as a shard from BookMaker,
+so SortedBookWriter.writeSortedRun writes it. It goes next to the tree books, named depth<n>Sorted.bin instead of depth<n>Book.bin
+
+A lookup is a binary search of the memory mapped file. One mapping can't be over 2 GB, so the file is mapped in chunks
+Reads never move the buffers' positions, so any number of threads can share one reader */
+public class SortedBookReader implements BookReader, Iterable<Long> {
+    // 2^27 entries (1 GB) per mapping by default
+    public static final int defaultChunkEntries = 1 << 27;
+
+    private final File bookFile;
+    private final LongBuffer[] chunks;
+    private final int chunkEntries;
+    private final long numEntries;
+
+    public static String fileName(int depth) {
+        return "depth" + depth + "Sorted.bin";
+    }
+
+    public static boolean isSortedBook(File book) {
+        return book.getName().endsWith("Sorted.bin");
+    }
+
+    private long entry(long index) {
+        return chunks[(int) (index / chunkEntries)].get((int) (index % chunkEntries));
+    }
+
+    @Override
+    public int get(long searchKey) throws IllegalArgumentException {
+        long low = 0;
+        long high = numEntries - 1;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            long entry = entry(middle);
+            long key = entry >>> 8;
+
+            if (key == searchKey) {
+                return (byte) entry;
+            }
+            if (key < searchKey) {
+                low = middle + 1;
+            }
+            else {
+                high = middle - 1;
+            }
+        }
+        throw new IllegalArgumentException("No key of " + searchKey + " found");
+    }
+
+    public long getNumEntries() {
+        return numEntries;
+    }
+
+    // Every key in the book, in increasing order
+    @Override
+    public Iterator<Long> iterator() {
+        return new Iterator<>() {
+            private long index;
+
+            @Override
+            public boolean hasNext() {
+                return index < numEntries;
+            }
+
+            @Override
+            public Long next() {
+                if (index == numEntries) {
+                    throw new NoSuchElementException();
+                }
+                return entry(index++) >>> 8;
+            }
+        };
+    }
+
+    // Reads every entry, the same as TreeReader.readEntries, except that they come out sorted
+    public long[] readEntries() throws IOException {
+        if (numEntries > Integer.MAX_VALUE - 8) {
+            throw new IOException("Too many entries to read into one array: " + bookFile);
+        }
+        long[] entries = new long[(int) numEntries];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = entry(i);
+        }
+        return entries;
+    }
+
+    public SortedBookReader(File initialBookFile, int initialChunkEntries) throws IOException {
+        bookFile = initialBookFile;
+        chunkEntries = initialChunkEntries;
+
+        try (FileChannel channel = FileChannel.open(bookFile.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % Long.BYTES != 0) {
+                throw new IOException("Not a sorted book file: " + bookFile);
+            }
+            numEntries = size / Long.BYTES;
+
+            // The mappings stay valid after the channel is closed
+            chunks = new LongBuffer[(int) ((numEntries + chunkEntries - 1) / chunkEntries)];
+            for (int chunk = 0; chunk < chunks.length; chunk++) {
+                long start = (long) chunk * chunkEntries;
+                long length = Math.min(chunkEntries, numEntries - start);
+                chunks[chunk] = channel.map(FileChannel.MapMode.READ_ONLY, start * Long.BYTES, length * Long.BYTES).asLongBuffer();
+            }
+        }
+    }
+    public SortedBookReader(File initialBookFile) throws IOException {
+        this(initialBookFile, defaultChunkEntries);
+    }
+}
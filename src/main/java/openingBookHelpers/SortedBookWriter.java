@@ -0,0 +1,254 @@
+package openingBookHelpers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/* Writes a book in the same preorder format as AVLTreeWriter, without holding a tree in memory
+
+Entries are packed into longs (key << 8 | value & 0xFF) and collected in a fixed size buffer.
+Each time the buffer fills, it is sorted and written out as a run file. At the end the runs are merged,
+which streams every entry in sorted order using a few buffers of memory.
+
+A sorted list is the in order walk of a perfectly balanced tree: the root is the middle entry,
+and each half is a subtree. Walking that implicit tree in order, each entry's place in the preorder
+(and its left weight) follows from the range it covers. So each record is written straight to its
+place in the output file, in one pass, with memory for one path down the tree.
+
+The tree is balanced rather than AVL shaped, so the bytes differ from AVLTreeWriter's, but TreeReader reads both
+
+A tree can't hold more than maxEntries. writeSortedRun has no such limit, and writes the sorted entries as they are,
+which is what SortedBookReader reads for books too big to be a tree */
+public class SortedBookWriter implements Closeable {
+    // 4 million entries (32 MB) per run by default
+    public static final int defaultRunEntries = 1 << 22;
+
+    // The most a tree can hold: the left weight has 24 bits, and the root's left subtree holds half the entries
+    public static final int maxEntries = (1 << 25) - 1;
+
+    private final File bookFile;
+    private final Path runDirectory;
+    private final List<File> runFiles = new ArrayList<>();
+    private final List<File> sortedRunFiles = new ArrayList<>();
+    private final long[] buffer;
+    private int buffered;
+    private long numEntries;
+
+    // State while writing: the runs being merged, the last key merged (to catch duplicates), and the output
+    private PriorityQueue<Run> merging;
+    private long lastKey = -1;
+    private MappedByteBuffer output;
+    private final byte[] record = new byte[TreeNode.serializedBytes];
+
+    // One sorted run being merged, either from a file or from the buffer
+    private static class Run {
+        private final DataInputStream in;
+        private final long[] entries;
+        private final int size;
+        private int index;
+        private long head;
+
+        Run(File runFile) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(runFile), 1 << 16));
+            entries = null;
+            size = 0;
+        }
+        Run(long[] sortedEntries, int sortedSize) {
+            in = null;
+            entries = sortedEntries;
+            size = sortedSize;
+        }
+
+        // Moves head to the next entry, returning false once the run is empty
+        boolean advance() throws IOException {
+            if (in == null) {
+                if (index == size) {
+                    return false;
+                }
+                head = entries[index++];
+                return true;
+            }
+
+            try {
+                head = in.readLong();
+                return true;
+            }
+            catch (EOFException e) {
+                in.close();
+                return false;
+            }
+        }
+    }
+
+    private void writeRun() throws IOException {
+        Arrays.sort(buffer, 0, buffered);
+
+        File runFile = runDirectory.resolve("run" + runFiles.size() + ".bin").toFile();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(runFile), 1 << 16))) {
+            for (int i = 0; i < buffered; i++) {
+                out.writeLong(buffer[i]);
+            }
+        }
+        runFiles.add(runFile);
+        buffered = 0;
+    }
+
+    // Same as Tree.insertNode, except that duplicate keys are only found when writing
+    public void insertNode(long key, byte value) throws IOException {
+        if (buffered == buffer.length) {
+            writeRun();
+        }
+        buffer[buffered++] = (key << 8) | (value & 0xFF);
+        numEntries++;
+    }
+
+    /* Adds a file which is already a sorted run: packed entries as longs, in increasing order, like BookMaker's shards
+    It is merged in place rather than copied, and is not deleted by close */
+    public void addSortedRun(File runFile) {
+        long runEntries = runFile.length() / Long.BYTES;
+        if (runFile.length() % Long.BYTES != 0) {
+            throw new IllegalArgumentException("Not a sorted run file: " + runFile);
+        }
+        sortedRunFiles.add(runFile);
+        numEntries += runEntries;
+    }
+
+    // The next entry of the merge, in sorted order
+    private long nextEntry() throws IOException {
+        Run run = merging.poll();
+        long entry = run.head;
+        if (run.advance()) {
+            merging.add(run);
+        }
+
+        if (entry >>> 8 == lastKey) {
+            throw new IllegalArgumentException("Tree already contains a node with key " + lastKey);
+        }
+        // Only possible if an added run was not sorted
+        if (lastKey != -1 && entry >>> 8 < lastKey) {
+            throw new IllegalArgumentException("Sorted run has key " + (entry >>> 8) + " after " + lastKey);
+        }
+        lastKey = entry >>> 8;
+        return entry;
+    }
+
+    /* Walks the balanced tree over sorted entries [low, high) in order
+    Its root (the middle entry) goes at preorder index preorder, followed by the left subtree, then the right */
+    private void writeSubtree(int low, int high, int preorder) throws IOException {
+        if (low == high) {
+            return;
+        }
+        int middle = (low + high) >>> 1;
+        int leftWeight = middle - low;
+
+        writeSubtree(low, middle, preorder + 1);
+
+        long entry = nextEntry();
+        TreeNode.encode(entry >>> 8, (byte) entry, middle + 1 < high, leftWeight, record);
+        output.put(preorder * TreeNode.serializedBytes, record);
+
+        writeSubtree(middle + 1, high, preorder + 1 + leftWeight);
+    }
+
+    // Opens every run, and starts merging them in sorted order
+    private List<Run> startMerge() throws IOException {
+        Arrays.sort(buffer, 0, buffered);
+        merging = new PriorityQueue<>((a, b) -> Long.compare(a.head, b.head));
+        lastKey = -1;
+
+        List<Run> runs = new ArrayList<>();
+        for (File runFile : runFiles) {
+            runs.add(new Run(runFile));
+        }
+        for (File runFile : sortedRunFiles) {
+            runs.add(new Run(runFile));
+        }
+        runs.add(new Run(buffer, buffered));
+        for (Run run : runs) {
+            if (run.advance()) {
+                merging.add(run);
+            }
+        }
+        return runs;
+    }
+
+    private static void closeRuns(List<Run> runs) throws IOException {
+        for (Run run : runs) {
+            if (run.in != null) {
+                run.in.close();
+            }
+        }
+    }
+
+    // Merges every run into the book file
+    public void writeContent() throws IOException {
+        if (numEntries > maxEntries) {
+            throw new IllegalArgumentException("A tree can hold at most " + maxEntries + " entries, not " + numEntries +
+                    ", so write a sorted book with writeSortedRun");
+        }
+        List<Run> runs = startMerge();
+
+        long bytes = numEntries * TreeNode.serializedBytes;
+        try (FileChannel channel = FileChannel.open(bookFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            output = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            writeSubtree(0, (int) numEntries, 0);
+            output.force();
+        }
+        finally {
+            output = null;
+            closeRuns(runs);
+        }
+    }
+
+    /* Merges every run into the book file as one sorted run instead of a tree, which addSortedRun can take later
+    This is how BookMaker writes its shards, and the books too big to be a tree, for SortedBookReader */
+    public void writeSortedRun() throws IOException {
+        List<Run> runs = startMerge();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(bookFile), 1 << 16))) {
+            for (long i = 0; i < numEntries; i++) {
+                out.writeLong(nextEntry());
+            }
+        }
+        finally {
+            closeRuns(runs);
+        }
+    }
+
+    // Deletes the run files
+    @Override
+    public void close() throws IOException {
+        for (File runFile : runFiles) {
+            Files.deleteIfExists(runFile.toPath());
+        }
+        Files.deleteIfExists(runDirectory);
+    }
+
+    // Runs go in the temporary folder, which can be moved to a bigger disk with -Djava.io.tmpdir
+    // Not in the book's folder, since TreeReader.getMaxBookDepth expects only books there
+    public SortedBookWriter(File initialBookFile, int runEntries) throws IOException {
+        bookFile = initialBookFile;
+        runDirectory = Files.createTempDirectory("bookRuns");
+        buffer = new long[runEntries];
+    }
+    public SortedBookWriter(File initialBookFile) throws IOException {
+        this(initialBookFile, defaultRunEntries);
+    }
+}
@@ -19,21 +19,20 @@ public class TreeNode {
     // We care about this when inserting in an AVL tree
     public int height;
 
-    // Writes the content of a node to a file output stream
-    // Only meant to be used by the AVLTreeWriter
-    public void writeContent(FileOutputStream out) throws IOException {
-        /* The plan for serializing the node
-        49 unsigned bits for the key
-        6 signed bits for the value
-        1 bit for if the right child exists (1 is yes, 0 is no)
-        24 unsigned bits for the weight of the left child (0 if it does not exist)
-		So 80 bits total, or 10 bytes */
-        byte[] data = new byte[10];
+    /* The plan for serializing a node
+    49 unsigned bits for the key
+    6 signed bits for the value
+    1 bit for if the right child exists (1 is yes, 0 is no)
+    24 unsigned bits for the weight of the left child (0 if it does not exist)
+    So 80 bits total, or 10 bytes */
+    public static final int serializedBytes = 10;
 
+    // Serializes any node into data, so writers without TreeNode objects can share the format
+    public static void encode(long key, byte value, boolean rightExists, int leftWeight, byte[] data) {
         // This is meant to include the key, value, and right child exists
         long firstSevenBytes = key << 7;
         firstSevenBytes += (value << 1) & 0b1111110;
-        if (right != null) {
+        if (rightExists) {
             firstSevenBytes += 1;
         }
 
@@ -43,6 +42,17 @@ public class TreeNode {
         }
 
         // Last 3 bytes come from the weight of the left child
+        for (int i = 9; i >= 7; i--) {
+            data[i] = (byte)(leftWeight & 0xFF);
+            leftWeight >>>= 8;
+        }
+    }
+
+    // Writes the content of a node to a file output stream
+    // Only meant to be used by the AVLTreeWriter
+    public void writeContent(FileOutputStream out) throws IOException {
+        byte[] data = new byte[serializedBytes];
+
         int leftWeight;
         if (left == null) {
             leftWeight = 0;
@@ -51,11 +61,7 @@ public class TreeNode {
             leftWeight = left.weight;
         }
 
-        for (int i = 9; i >= 7; i--) {
-            data[i] = (byte)(leftWeight & 0xFF);
-            leftWeight >>>= 8;
-        }
-
+        encode(key, value, right != null, leftWeight, data);
         out.write(data);
     }
 
@@ -1,5 +1,6 @@
 package openingBookHelpers;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -13,7 +14,7 @@ import miscHelpers.Utils;
    Class supports get and iterate methods.
    Both of these open a stream at the start, then close it before returning
    or raising errors. As such this class can be reused once initialized. */
-public class TreeReader implements Iterable<Long> {
+public class TreeReader implements BookReader, Iterable<Long> {
     private File bookFile;
 	private FileInputStream bookIn;
     private final String readErrorMessage = "Could not read 10 bytes at once";
@@ -70,7 +71,9 @@ public class TreeReader implements Iterable<Long> {
 
     // Returns an eval when given a key and a depth
     // Throws an illegal argument exception if the key is not found
-    public int get(long searchKey) throws IllegalArgumentException, IOException {
+    // Synchronized because the stream is a field, so two threads can not search at the same time
+    @Override
+    public synchronized int get(long searchKey) throws IllegalArgumentException, IOException {
 		openStream();
 
         byte[] currEntry = new byte[10];
@@ -164,12 +167,38 @@ public class TreeReader implements Iterable<Long> {
         };
     }
 
+    // Reads every entry in file order, packed as key << 8 | eval & 0xFF
+    // Useful for converting a book into another format
+    public long[] readEntries() throws IOException {
+        long[] entries = new long[(int) (bookFile.length() / 10)];
+        byte[] currEntry = new byte[10];
+
+        try (BufferedInputStream in = new BufferedInputStream(new FileInputStream(bookFile))) {
+            for (int i = 0; i < entries.length; i++) {
+                if (in.readNBytes(currEntry, 0, 10) != 10) {
+                    throw new IOException(readErrorMessage);
+                }
+                int value = (currEntry[6] << 25) >> 26;
+                entries[i] = (reconstructKey(currEntry) << 8) | (value & 0xFF);
+            }
+        }
+        return entries;
+    }
+
 	// Returns the maximum depth of book that has been solved, and all depths below have also been solved
 	// So a return value of 11 indicates that all books (0-11) have been solved, but 12 has not
 	// Returns -1 if depth 0 has not been solved
 	public static int getMaxBookDepth() {
-        File books = Paths.get(Utils.getProjectRoot(), Utils.bookResources).toFile();
+		return getMaxBookDepth(Utils.bookResources);
+	}
+
+	// The same, for books in some other folder of resources (like converted books)
+	public static int getMaxBookDepth(String resources) {
+        File books = Paths.get(Utils.getProjectRoot(), resources).toFile();
 		String[] fileNames = books.list();
+		if (fileNames == null) {
+			return -1;
+		}
 		int[] depths = new int[fileNames.length];
 		for (int i = 0; i < fileNames.length; i++) {
 			depths[i] = Integer.parseInt(fileNames[i].replaceAll("[^0-9]", ""));
@@ -188,6 +217,29 @@ public class TreeReader implements Iterable<Long> {
 		return maxDepth;
 	}
 
+	/* The book of a depth in some folder of resources
+	A depth with more entries than the tree format holds is a sorted book (see SortedBookReader) instead of a tree book.
+	The helpers below read either kind, so callers don't need to know which one a depth is */
+	public static File findBook(String resources, int depth) {
+		File sortedBook = Paths.get(Utils.getProjectRoot(), resources, SortedBookReader.fileName(depth)).toFile();
+		if (sortedBook.exists()) {
+			return sortedBook;
+		}
+		return Paths.get(Utils.getProjectRoot(), resources, "depth" + depth + "Book.bin").toFile();
+	}
+
+	public static BookReader openBook(File book) throws IOException {
+		return SortedBookReader.isSortedBook(book) ? new SortedBookReader(book) : new TreeReader(book);
+	}
+
+	public static Iterable<Long> bookKeys(File book) throws IOException {
+		return SortedBookReader.isSortedBook(book) ? new SortedBookReader(book) : new TreeReader(book);
+	}
+
+	public static long[] readBookEntries(File book) throws IOException {
+		return SortedBookReader.isSortedBook(book) ? new SortedBookReader(book).readEntries() : new TreeReader(book).readEntries();
+	}
+
     public TreeReader(File initialFile) {
 		bookFile = initialFile;
     }
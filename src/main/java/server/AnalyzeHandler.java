@@ -0,0 +1,66 @@
+package server;
+
+import java.io.IOException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import liveSolverClasses.Position;
+import liveSolverClasses.Solver;
+
+/* Evaluates every column of a position in one request, instead of one /solve/ request per column
+Responds with 7 comma separated evaluations (the same as /solve/ would give for each child)
+A full column is left empty, so a position with column 3 full looks like "1,-2,5,,4,-3,0"
+
+The live solves share the server's -DsolveDeadlineMillis, counted from when the request came in.
+A child that runs out of time gets its two bounds separated by a colon, as in "1,-2:18,5,,4,-3,0",
+and then the X-Evaluation header is bounds, the same as /solve/ sends. Otherwise it is exact */
+public class AnalyzeHandler implements HttpHandler {
+	private final SolveHandler solveHandler;
+
+	public void handle(HttpExchange httpExchange) throws IOException {
+		Server.readRequest(httpExchange);
+
+		// Ignores queries (?), fragments (#), and the path beginning with /analyze/
+		String moves = httpExchange.getRequestURI().getPath().substring(9);
+		Position position = Server.parseMoves(moves);
+		if (position == null) {
+			Server.writeResponse(httpExchange, Server.BAD_REQUEST_STATUS, "Not a valid sequence of moves");
+			System.out.println("AnalyzeHandler rejected the moves " + moves);
+			return;
+		}
+
+		Solver.Bounds[] bounds = solveHandler.mixedAnalyze(position, solveHandler.requestDeadline());
+
+		StringBuilder csvBuilder = new StringBuilder();
+		boolean exact = true;
+		for (int col = 0; col < Position.WIDTH; col++) {
+			if (col > 0) {
+				csvBuilder.append(",");
+			}
+			if (bounds[col] == null) {
+				continue;
+			}
+			csvBuilder.append(SolveHandler.displayEvaluation(bounds[col].min(), position.movesPlayed + 1));
+			if (!bounds[col].isExact()) {
+				csvBuilder.append(":").append(SolveHandler.displayEvaluation(bounds[col].max(), position.movesPlayed + 1));
+				exact = false;
+			}
+		}
+		String csvResponse = csvBuilder.toString();
+
+		httpExchange.getResponseHeaders().set("X-Evaluation", exact ? "exact" : "bounds");
+		Server.writeResponse(httpExchange, csvResponse);
+
+		if (moves.isEmpty()) {
+			moves = "<Starting Position>";
+		}
+		System.out.print("AnalyzeHandler analyzed " + moves);
+		System.out.println(" sent evaluations of " + csvResponse);
+	}
+
+	// Shares the solve handler's solvers, table, and opening book
+	public AnalyzeHandler(SolveHandler initialSolveHandler) {
+		solveHandler = initialSolveHandler;
+	}
+}
@@ -0,0 +1,154 @@
+package server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import liveSolverClasses.Position;
+import liveSolverClasses.SolveDeadline;
+
+/* Solves many positions in one request. The body holds one move string per line (the same as /solve/<moves>)
+Positions are deduplicated, treating mirrors as the same position, then solved concurrently on a pool.
+The response streams back one JSON record per line as each position finishes, in no particular order:
+    {"moves":"3304","evaluation":-17}
+    {"moves":"7","error":"Not a valid sequence of moves"} */
+public class BatchHandler implements HttpHandler {
+	private final SolveHandler solveHandler;
+	private final ExecutorService solverPool;
+
+	// Only valid move strings are written back as they are, anything else needs escaping
+	private static String jsonString(String text) {
+		StringBuilder jsonBuilder = new StringBuilder("\"");
+		for (char c : text.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				jsonBuilder.append('\\').append(c);
+			}
+			else if (c < 0x20) {
+				jsonBuilder.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				jsonBuilder.append(c);
+			}
+		}
+		return jsonBuilder.append('"').toString();
+	}
+
+	// Solves one position, then writes the records for every move string which reached it (or its mirror)
+	// A failure only turns this position's records into errors, the rest of the batch carries on
+	private String solveRecords(Position position, ArrayList<String> movesList, SolveDeadline batchCancel) {
+		String result;
+		try {
+			// Only inexact once the batch is cancelled, and then nothing more is written
+			int evaluation = SolveHandler.displayEvaluation(solveHandler.mixedSolve(position, batchCancel).min(), position.movesPlayed);
+			result = ",\"evaluation\":" + evaluation + "}\n";
+		}
+		catch (IOException | RuntimeException e) {
+			result = ",\"error\":" + jsonString(String.valueOf(e.getMessage())) + "}\n";
+		}
+
+		StringBuilder records = new StringBuilder();
+		for (String moves : movesList) {
+			records.append("{\"moves\":").append(jsonString(moves)).append(result);
+		}
+		return records.toString();
+	}
+
+	private static void writeRecords(OutputStream responseStream, String records) throws IOException {
+		responseStream.write(records.getBytes());
+		responseStream.flush();
+	}
+
+	public void handle(HttpExchange httpExchange) throws IOException {
+		String request = Server.readRequest(httpExchange);
+
+		// Canonical key, to every move string in the request that reaches that position or its mirror
+		LinkedHashMap<Long, ArrayList<String>> movesByKey = new LinkedHashMap<>();
+		LinkedHashMap<Long, Position> positionsByKey = new LinkedHashMap<>();
+		StringBuilder invalidRecords = new StringBuilder();
+		int requestCount = 0;
+
+		for (String line : request.split("\n")) {
+			String moves = line.trim();
+			if (moves.isEmpty()) {
+				continue;
+			}
+			requestCount++;
+
+			Position position = Server.parseMoves(moves);
+			if (position == null) {
+				invalidRecords.append("{\"moves\":").append(jsonString(moves));
+				invalidRecords.append(",\"error\":\"Not a valid sequence of moves\"}\n");
+				continue;
+			}
+
+			long key = position.getCanonicalKey();
+			positionsByKey.putIfAbsent(key, position);
+			movesByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(moves);
+		}
+
+		// Zero means the length is unknown, so the response is streamed in chunks
+		httpExchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+		httpExchange.sendResponseHeaders(Server.OK_STATUS, 0);
+		OutputStream responseStream = httpExchange.getResponseBody();
+		writeRecords(responseStream, invalidRecords.toString());
+
+		// Cancelled when the rest of the batch can't be written, such as when the client disconnects,
+		// so its solves stop rather than keep the solver pool busy for nobody
+		SolveDeadline batchCancel = SolveDeadline.never();
+		ExecutorCompletionService<String> solves = new ExecutorCompletionService<>(solverPool);
+		ArrayList<Future<String>> solveFutures = new ArrayList<>();
+		for (Long key : positionsByKey.keySet()) {
+			Position position = positionsByKey.get(key);
+			ArrayList<String> movesList = movesByKey.get(key);
+			solveFutures.add(solves.submit(() -> solveRecords(position, movesList, batchCancel)));
+		}
+
+		try {
+			for (int i = 0; i < positionsByKey.size(); i++) {
+				try {
+					writeRecords(responseStream, solves.take().get());
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for a batch solve", e);
+				}
+				catch (ExecutionException e) {
+					throw new IOException("Batch solve failed", e);
+				}
+			}
+		}
+		finally {
+			// Does nothing once every solve has finished
+			batchCancel.cancel();
+			for (Future<String> solveFuture : solveFutures) {
+				solveFuture.cancel(true);
+			}
+		}
+
+		responseStream.close();
+		httpExchange.close();
+
+		System.out.print("BatchHandler solved " + positionsByKey.size() + " distinct positions");
+		System.out.println(" for " + requestCount + " requested");
+	}
+
+	// Shares the solve handler's table, opening book, and solver pool
+	// This pool only limits how many of a batch's positions are looked up or waiting on the solver pool at once
+	public BatchHandler(SolveHandler initialSolveHandler, int threads) {
+		solveHandler = initialSolveHandler;
+		solverPool = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "batch-solver");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+}
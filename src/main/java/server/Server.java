@@ -7,14 +7,19 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.URLConnection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
 
+import liveSolverClasses.Position;
+
 
 public class Server {
-	public static final int PORT = 80;
+	public static final int PORT = Integer.getInteger("port", 80);
 	public static final int OK_STATUS = 200;
+	public static final int BAD_REQUEST_STATUS = 400;
 
 	public static String readRequest(HttpExchange httpExchange) throws IOException {
 		InputStream requestStream = httpExchange.getRequestBody();
@@ -23,9 +28,26 @@ public class Server {
 		return new String(request);
 	}
 
+	// Returns null if the moves are not a legal game, or if someone won before the last move
+	static Position parseMoves(String moves) {
+		Position position = new Position();
+		for (char move : moves.toCharArray()) {
+			int col = move - '0';
+			if (col < 0 || col >= Position.WIDTH || !position.canPlay(col) || position.priorPlayerHasWon()) {
+				return null;
+			}
+			position.playCol(col);
+		}
+		return position;
+	}
+
 	public static void writeResponse(HttpExchange httpExchange, String response) throws IOException {
+		writeResponse(httpExchange, OK_STATUS, response);
+	}
+
+	public static void writeResponse(HttpExchange httpExchange, int status, String response) throws IOException {
 		httpExchange.getResponseHeaders().set("Content-Type", "text/plain");
-		httpExchange.sendResponseHeaders(OK_STATUS, response.length());
+		httpExchange.sendResponseHeaders(status, response.length());
 		OutputStream responseStream = httpExchange.getResponseBody();
 		responseStream.write(response.getBytes());
 		responseStream.close();
@@ -46,12 +68,26 @@ public class Server {
 		httpExchange.close();
 	}
 
+	/* Each request gets a thread of its own, so a slow one never holds up the rest. Most of these threads only wait,
+	on the network or on SolveHandler's solver pool, which is what limits how much solving runs at once
+	Run with -DhttpThreads=N to cap the number of request threads instead, and queue the rest */
+	static ExecutorService requestExecutor() {
+		int httpThreads = Integer.getInteger("httpThreads", 0);
+		if (httpThreads > 0) {
+			return Executors.newFixedThreadPool(httpThreads);
+		}
+		return Executors.newCachedThreadPool();
+	}
+
 	public static void main(String[] args) throws Exception {
 		HttpServer server = HttpServer.create(new InetSocketAddress(PORT), 0);
 		server.createContext("/", new RootHandler());
-		server.createContext("/solve/", new SolveHandler());
+		SolveHandler solveHandler = new SolveHandler();
+		server.createContext("/solve/", solveHandler);
+		server.createContext("/analyze/", new AnalyzeHandler(solveHandler));
+		server.createContext("/batch/", new BatchHandler(solveHandler, Runtime.getRuntime().availableProcessors()));
 		server.createContext("/alignment/", new AlignmentHandler());
-		server.setExecutor(null);
+		server.setExecutor(requestExecutor());
 		server.start();
 		System.out.println("The server is running");
 	}
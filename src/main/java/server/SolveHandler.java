@@ -4,49 +4,205 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import liveSolverClasses.Position;
+import liveSolverClasses.ConcurrentTranspositionTable;
+import liveSolverClasses.SolveDeadline;
 import liveSolverClasses.Solver;
+import liveSolverClasses.TableSnapshot;
 import liveSolverClasses.TranspositionTable;
+import miscHelpers.TransTableSerializer;
 import miscHelpers.Utils;
+import openingBookHelpers.BookReader;
+import openingBookHelpers.CanonicalBookReader;
+import openingBookHelpers.ChildEvalBookReader;
+import openingBookHelpers.CompressedBookReader;
+import openingBookHelpers.HashedBookReader;
+import openingBookHelpers.MappedBookReader;
 import openingBookHelpers.TreeReader;
 
 public class SolveHandler implements HttpHandler {
-	private Solver solver;
+	// Solvers keep per-search state, so each thread gets its own. They all share one table
+	private ThreadLocal<Solver> solvers;
+
+	/* Live solves run on this pool, sized to the cores (or -DsolverThreads=N), while the request's own thread waits
+	So however many requests come in, only that many solves compete for the cores, and requests which never reach
+	the solver (static files, alignments, book hits) are answered straight away on their own threads */
+	private final ExecutorService solverPool = Executors.newFixedThreadPool(
+			Integer.getInteger("solverThreads", Runtime.getRuntime().availableProcessors()), runnable -> {
+		Thread thread = new Thread(runnable, "live-solver");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// What the last live solve requested from each thread took, for logging
+	private final ThreadLocal<String> lastStatistics = new ThreadLocal<>();
+
+	// Run the server with -DsolverStatistics=true to log how much work each live solve took
+	private final boolean collectStatistics = Boolean.getBoolean("solverStatistics");
+
+	/* Run the server with -DbookFormat=mapped to read the book converted by BookConverter
+	Those are memory mapped, so lookups make no system calls, and threads don't wait on each other
+	Or use -DbookFormat=hashed (or perfectHash, which is smaller) to load the whole book into memory at startup
+	Or -DbookFormat=compressed, for the book converted into its smallest format */
+	private final String bookFormat = System.getProperty("bookFormat", "tree");
+
+	// Add -DcanonicalBook=true to read the half size books of that format, made with BookConverter's canonical option
+	private final boolean canonicalBook = Boolean.getBoolean("canonicalBook");
+
+	// Add -DchildEvalBook=true to answer analysis from the books made by ChildEvalBookMaker, with one lookup per request
+	private final boolean childEvalBook = Boolean.getBoolean("childEvalBook");
+
+	/* Run the server with -DsolveDeadlineMillis=2000 (for example) to give up on a live solve after that long, counted from
+	when the request came in. It is then answered with the bounds proven so far, rather than an exact evaluation */
+	private final long solveDeadlineMillis = Long.getLong("solveDeadlineMillis", 0);
+
+	// Run the server with -DtableCheckpointMinutes=10 (for example) to save the live table that often, and at shutdown
+	private final long tableCheckpointMinutes = Long.getLong("tableCheckpointMinutes", 0);
+
 	private int maxBookDepth;
-	private TreeReader[] treeReaders;
+	private BookReader[] bookReaders;
+	private int maxChildEvalDepth = -1;
+	private ChildEvalBookReader[] childEvalReaders;
 
 	public int mixedSolve(Position position) throws IOException {
+		return mixedSolve(position, null).min();
+	}
+
+	/* The same, except that a live solve gives up once the deadline passes, with the bounds it had proven by then
+	Book lookups are always exact, and so is everything without a deadline (a null one) */
+	public Solver.Bounds mixedSolve(Position position, SolveDeadline deadline) throws IOException {
 		int depth = position.movesPlayed;
 
 		if (position.priorPlayerHasWon()) {
-			return (depth - Position.WIDTH * Position.HEIGHT - 2) / 2;
+			int score = (depth - Position.WIDTH * Position.HEIGHT - 2) / 2;
+			return new Solver.Bounds(score, score);
 		}
 		if (depth <= maxBookDepth) {
-			return treeReaders[depth].get(position.getKey());
+			int score = bookReaders[depth].get(position.getKey());
+			return new Solver.Bounds(score, score);
 		}
 
-		return solver.solve(position);
+		// Statistics are read on the pool thread, before its solver can start on another position
+		String[] statistics = new String[1];
+		Solver.Bounds bounds = onSolverPool(() -> {
+			Solver solver = solvers.get();
+			Solver.Bounds liveBounds;
+			if (deadline == null) {
+				int score = solver.solve(position);
+				liveBounds = new Solver.Bounds(score, score);
+			}
+			else {
+				liveBounds = solver.solve(position, deadline);
+			}
+			if (collectStatistics) {
+				statistics[0] = String.valueOf(solver.getStatistics());
+			}
+			return liveBounds;
+		}, deadline);
+		lastStatistics.set(statistics[0]);
+		return bounds;
 	}
 
-	public void handle(HttpExchange httpExchange) throws IOException {
-		Server.readRequest(httpExchange);
+	// Runs a live solve on the solver pool, and waits for it
+	// If this thread is interrupted the solve is cancelled too, when it has a deadline to cancel
+	private <T> T onSolverPool(Callable<T> solve, SolveDeadline deadline) throws IOException {
+		Future<T> result = solverPool.submit(solve);
+		try {
+			return result.get();
+		}
+		catch (InterruptedException e) {
+			if (deadline != null) {
+				deadline.cancel();
+			}
+			result.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for a solve", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new IOException("Live solve failed", e.getCause());
+		}
+	}
 
-		// Ignores queries (?), fragments (#), and the path beginning with /solve/
-		String moves = httpExchange.getRequestURI().getPath().substring(7);
-		Position position = new Position();
-		for (char move : moves.toCharArray()) {
-			position.playCol(Character.getNumericValue(move));
+	/* Evaluates every child of a position, each from the point of view of the player to move in that child
+	So each value is what mixedSolve would return for the child, or Solver.illegalMove for a full column
+	Children in the book are looked up, otherwise they are all solved together with Solver.analyze */
+	public int[] mixedAnalyze(Position position) throws IOException {
+		Solver.Bounds[] bounds = mixedAnalyze(position, null);
+		int[] evaluations = new int[Position.WIDTH];
+		for (int col = 0; col < Position.WIDTH; col++) {
+			evaluations[col] = bounds[col] == null ? Solver.illegalMove : bounds[col].min();
 		}
+		return evaluations;
+	}
+
+	/* The same, except that the live solves share the deadline, as in mixedSolve, and a full column is null
+	Book lookups are always exact, and so is everything without a deadline (a null one) */
+	public Solver.Bounds[] mixedAnalyze(Position position, SolveDeadline deadline) throws IOException {
+		Solver.Bounds[] bounds = new Solver.Bounds[Position.WIDTH];
 
-		int evaluation = mixedSolve(position);
+		// The game is already over, so there is nothing left to play
+		if (position.priorPlayerHasWon()) {
+			return bounds;
+		}
+
+		// This covers the children of the last book depth too, which would otherwise be solved live
+		if (position.movesPlayed <= maxChildEvalDepth) {
+			int[] evaluations = new int[Position.WIDTH];
+			childEvalReaders[position.movesPlayed].getChildren(position.getKey(), evaluations);
+			for (int col = 0; col < Position.WIDTH; col++) {
+				if (evaluations[col] != Solver.illegalMove) {
+					bounds[col] = new Solver.Bounds(evaluations[col], evaluations[col]);
+				}
+			}
+			return bounds;
+		}
+
+		if (position.movesPlayed + 1 > maxBookDepth) {
+			// Analyze scores each column from this position's point of view, so the bounds flip to the child's
+			Solver.Bounds[] scores = onSolverPool(() -> solvers.get().analyze(position, deadline), deadline);
+			for (int col = 0; col < Position.WIDTH; col++) {
+				if (scores[col] != null) {
+					bounds[col] = new Solver.Bounds(-scores[col].max(), -scores[col].min());
+				}
+			}
+			return bounds;
+		}
 
-		if (position.movesPlayed % 2 == 1) {
+		for (int col = 0; col < Position.WIDTH; col++) {
+			if (position.canPlay(col)) {
+				Position child = new Position(position);
+				child.playCol(col);
+				bounds[col] = mixedSolve(child, deadline);
+			}
+		}
+		return bounds;
+	}
+
+	// The deadline for a request that has just come in, or null when the server runs without -DsolveDeadlineMillis
+	SolveDeadline requestDeadline() {
+		return solveDeadlineMillis > 0 ? SolveDeadline.after(solveDeadlineMillis) : null;
+	}
+
+	// Converts an evaluation from the point of view of the player to move into the one the front end shows
+	// This is absolute (always based on Player One's pov), and counts moves until the game ends
+	public static int displayEvaluation(int evaluation, int movesPlayed) {
+		if (movesPlayed % 2 == 1) {
 			evaluation = 0 - evaluation; // Now it is absolute, ie always based on Player One's pov
 		}
 		
@@ -56,36 +212,177 @@ public class SolveHandler implements HttpHandler {
 		if (evaluation < 0) {
 			evaluation = Position.MIN_SCORE - 4 - evaluation;
 		}
+		return evaluation;
+	}
+
+	public void handle(HttpExchange httpExchange) throws IOException {
+		Server.readRequest(httpExchange);
+
+		// Ignores queries (?), fragments (#), and the path beginning with /solve/
+		String moves = httpExchange.getRequestURI().getPath().substring(7);
+		Position position = Server.parseMoves(moves);
+		if (position == null) {
+			Server.writeResponse(httpExchange, Server.BAD_REQUEST_STATUS, "Not a valid sequence of moves");
+			System.out.println("SolveHandler rejected the moves " + moves);
+			return;
+		}
 
-		Server.writeResponse(httpExchange, String.valueOf(evaluation));
+		/* With a deadline, a solve that runs out of time is answered with its lower and upper bounds, each shown the way
+		displayEvaluation shows an evaluation, and separated by a comma
+		The X-Evaluation header says which kind of answer it is: exact, or bounds */
+		Solver.Bounds bounds = mixedSolve(position, requestDeadline());
+		int evaluation = displayEvaluation(bounds.min(), position.movesPlayed);
+		String response = String.valueOf(evaluation);
+		if (!bounds.isExact()) {
+			response += "," + displayEvaluation(bounds.max(), position.movesPlayed);
+		}
+
+		httpExchange.getResponseHeaders().set("X-Evaluation", bounds.isExact() ? "exact" : "bounds");
+		Server.writeResponse(httpExchange, response);
 
 		if (moves.isEmpty()) {
 			moves = "<Starting Position>";
 		}
 		System.out.print("SolveHandler solved " + moves);
-		System.out.println(" sent an evaluation of " + evaluation);
+		if (bounds.isExact()) {
+			System.out.print(" sent an evaluation of " + evaluation);
+		}
+		else {
+			System.out.print(" ran out of time, so sent bounds of " + response);
+		}
+
+		// Statistics are only from this request if it went to the solver, rather than the book
+		if (collectStatistics && position.movesPlayed > maxBookDepth && !position.priorPlayerHasWon()) {
+			System.out.print(" (" + lastStatistics.get() + ")");
+		}
+		System.out.println();
+	}
+
+	/* Loads an already full and valid table, to prevent a cold start
+	The concurrent table lets requests on different threads solve against the same warm entries
+	If no saved table can be read, the server still starts, with an empty table */
+	private static ConcurrentTranspositionTable loadTable() {
+		long startTime = System.currentTimeMillis();
+		ConcurrentTranspositionTable table;
+		try {
+			table = readTable();
+		}
+		catch (IOException | ClassNotFoundException | RuntimeException e) {
+			System.out.println("Could not read a saved table, so starting with an empty one: " + e);
+			return new ConcurrentTranspositionTable();
+		}
+
+		System.out.println("Loaded " + table.numEntries + " table entries in " + (System.currentTimeMillis() - startTime) + " ms");
+		return table;
+	}
+
+	/* Reads the newest valid checkpoint of the live table if there is one, then the snapshot, and otherwise
+	falls back to the old serialized arrays, which are much slower to load, until TransTableSerializer convert is run */
+	private static ConcurrentTranspositionTable readTable() throws IOException, ClassNotFoundException {
+		Path snapshot = TransTableSerializer.snapshotPath(0);
+		TableSnapshot checkpoint = TableCheckpointer.loadNewest(TableCheckpointer.defaultFolder());
+		ConcurrentTranspositionTable table;
+
+		if (checkpoint != null) {
+			table = new ConcurrentTranspositionTable(checkpoint);
+			System.out.println("Read the table from its newest checkpoint");
+		}
+		else if (Files.exists(snapshot)) {
+			table = new ConcurrentTranspositionTable(new TableSnapshot(snapshot.toFile()));
+		}
+		else {
+			byte[] evals;
+			Path evalsSerialized = Paths.get(Utils.getProjectRoot(), Utils.tableResources, "depth0Evals.ser");
+			try (ObjectInputStream inEvals = new ObjectInputStream(new FileInputStream(evalsSerialized.toFile()))) {
+				evals = (byte[]) inEvals.readObject();
+			}
+
+			int[] keys;
+			Path keysSerialized = Paths.get(Utils.getProjectRoot(), Utils.tableResources, "depth0Keys.ser");
+			try (ObjectInputStream inKeys = new ObjectInputStream(new FileInputStream(keysSerialized.toFile()))) {
+				keys = (int[]) inKeys.readObject();
+			}
+
+			// Tables saved before multiply-shift hashing can't be used as they are, so their entries are copied over
+			if (keys.length == TranspositionTable.legacyEntries) {
+				table = new ConcurrentTranspositionTable();
+				int count = table.putLegacyEntries(keys, evals);
+				System.out.println("The serialized table uses the layout from before multiply-shift hashing, so copied its " + count +
+						" entries into a new table");
+			}
+			else {
+				table = new ConcurrentTranspositionTable(keys, evals);
+			}
+			System.out.println("No table snapshot, so read the serialized table. Run TransTableSerializer convert to start faster");
+		}
+		return table;
 	}
 
 	public SolveHandler() throws IOException, ClassNotFoundException {
-		// Initialize the solver with an already full and valid TranspositionTable
-		// Prevents a cold start
-		Path evalsSerialized = Paths.get(Utils.getProjectRoot(), Utils.tableResources, "depth0Evals.ser");
-		ObjectInputStream inEvals = new ObjectInputStream(new FileInputStream(evalsSerialized.toFile()));
-		byte[] evals = (byte[]) inEvals.readObject();
-		inEvals.close();
-
-		Path keysSerialized = Paths.get(Utils.getProjectRoot(), Utils.tableResources, "depth0Keys.ser");
-		ObjectInputStream inKeys = new ObjectInputStream(new FileInputStream(keysSerialized.toFile()));
-		int[] keys = (int[]) inKeys.readObject();
-		inKeys.close();
-
-		solver = new Solver(new TranspositionTable(keys, evals));
-		maxBookDepth = TreeReader.getMaxBookDepth();
-		treeReaders = new TreeReader[maxBookDepth + 1];
-		for (int depth = 0; depth <= maxBookDepth; depth++) {
-			String bookName = "depth" + depth + "Book.bin";
-			File book = Paths.get(Utils.getProjectRoot(), Utils.bookResources, bookName).toFile();
-			treeReaders[depth] = new TreeReader(book);
+		ConcurrentTranspositionTable table = loadTable();
+		if (tableCheckpointMinutes > 0) {
+			new TableCheckpointer(table, TableCheckpointer.defaultFolder()).start(tableCheckpointMinutes);
+		}
+		solvers = ThreadLocal.withInitial(() -> {
+			Solver solver = new Solver(table);
+			if (collectStatistics) {
+				solver.enableStatistics();
+			}
+			return solver;
+		});
+
+		boolean mappedBook = bookFormat.equals("mapped");
+		boolean compressedBook = bookFormat.equals("compressed");
+		boolean hashedBook = bookFormat.equals("hashed") || bookFormat.equals("perfectHash");
+		if (!mappedBook && !compressedBook && !hashedBook && !bookFormat.equals("tree")) {
+			throw new IllegalArgumentException("Unknown book format " + bookFormat + ", expected tree, mapped, compressed, hashed, or perfectHash");
+		}
+		String bookResources = mappedBook ? Utils.mappedBookResources : compressedBook ? Utils.compressedBookResources : Utils.bookResources;
+		if (canonicalBook) {
+			bookResources = Utils.canonicalResources(bookResources);
+		}
+
+		maxBookDepth = TreeReader.getMaxBookDepth(bookResources);
+		bookReaders = new BookReader[maxBookDepth + 1];
+
+		// One hashed reader holds every depth, so each depth points to it
+		if (hashedBook) {
+			long startTime = System.currentTimeMillis();
+			HashedBookReader hashedReader = HashedBookReader.loadTreeBooks(bookResources, maxBookDepth, bookFormat.equals("perfectHash"));
+			Arrays.fill(bookReaders, canonicalBook ? new CanonicalBookReader(hashedReader) : hashedReader);
+
+			System.out.println("Loaded " + hashedReader.numEntries + " book positions in " + (System.currentTimeMillis() - startTime) +
+					" ms, using " + hashedReader.bytesUsed() / (1 << 20) + " MB");
+		}
+		else {
+			for (int depth = 0; depth <= maxBookDepth; depth++) {
+				String bookName = "depth" + depth + "Book.bin";
+				File book = Paths.get(Utils.getProjectRoot(), bookResources, bookName).toFile();
+				if (mappedBook) {
+					bookReaders[depth] = new MappedBookReader(book);
+				}
+				else if (compressedBook) {
+					bookReaders[depth] = new CompressedBookReader(book);
+				}
+				// A tree book's deep depths can be sorted books instead
+				else {
+					bookReaders[depth] = TreeReader.openBook(TreeReader.findBook(bookResources, depth));
+				}
+
+				// Canonical books only hold one of each mirrored pair, so lookups go through the smaller key
+				if (canonicalBook) {
+					bookReaders[depth] = new CanonicalBookReader(bookReaders[depth]);
+				}
+			}
+		}
+
+		if (childEvalBook) {
+			maxChildEvalDepth = TreeReader.getMaxBookDepth(Utils.childEvalBookResources);
+			childEvalReaders = new ChildEvalBookReader[maxChildEvalDepth + 1];
+			for (int depth = 0; depth <= maxChildEvalDepth; depth++) {
+				String bookName = "depth" + depth + "Book.bin";
+				childEvalReaders[depth] = new ChildEvalBookReader(Paths.get(Utils.getProjectRoot(), Utils.childEvalBookResources, bookName).toFile());
+			}
 		}
 	}
 }
@@ -0,0 +1,134 @@
+package server;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import liveSolverClasses.ConcurrentTranspositionTable;
+import liveSolverClasses.TableSnapshot;
+import miscHelpers.Utils;
+
+/* Saves the live table every so often, and when the server shuts down, so a restart begins with everything it had learned
+Run the server with -DtableCheckpointMinutes=10 (for example) to turn this on. It is off by default
+
+Checkpoints are table snapshots named by when they were taken. Solvers keep running while one is written,
+see TableSnapshot.write. Each is written to a temporary file and renamed into place once it is on disk,
+so a crash while writing never leaves a partial checkpoint with a checkpoint's name. Only the newest few are kept */
+public class TableCheckpointer {
+	public static final int checkpointsKept = 2;
+	private static final Pattern checkpointPattern = Pattern.compile("checkpoint-(\\d+)\\.bin");
+
+	private final ConcurrentTranspositionTable table;
+	private final File checkpointFolder;
+	private ScheduledExecutorService scheduler;
+
+	public TableCheckpointer(ConcurrentTranspositionTable table, File checkpointFolder) {
+		this.table = table;
+		this.checkpointFolder = checkpointFolder;
+	}
+
+	public static File defaultFolder() {
+		return Paths.get(Utils.getProjectRoot(), Utils.tableCheckpointResources).toFile();
+	}
+
+	// The checkpoints in a folder, newest first
+	public static File[] findCheckpoints(File checkpointFolder) {
+		File[] files = checkpointFolder.listFiles((folder, name) -> checkpointPattern.matcher(name).matches());
+		if (files == null) {
+			return new File[0];
+		}
+		Arrays.sort(files, Comparator.comparingLong(TableCheckpointer::checkpointTime).reversed());
+		return files;
+	}
+
+	private static long checkpointTime(File checkpoint) {
+		Matcher matcher = checkpointPattern.matcher(checkpoint.getName());
+		matcher.matches();
+		return Long.parseLong(matcher.group(1));
+	}
+
+	// Reads the newest checkpoint that is whole and uncorrupted, skipping any that aren't, or returns null if there are none
+	public static TableSnapshot loadNewest(File checkpointFolder) {
+		for (File checkpoint : findCheckpoints(checkpointFolder)) {
+			try {
+				return new TableSnapshot(checkpoint);
+			}
+			catch (IOException e) {
+				System.out.println("Skipping checkpoint " + checkpoint + ": " + e.getMessage());
+			}
+		}
+		return null;
+	}
+
+	// Synchronized so the scheduled and shutdown checkpoints never write at the same time
+	public synchronized File checkpoint() throws IOException {
+		long startTime = System.currentTimeMillis();
+		Files.createDirectories(checkpointFolder.toPath());
+
+		// Never reuse a name, even for two checkpoints in the same millisecond
+		long time = startTime;
+		File[] checkpoints = findCheckpoints(checkpointFolder);
+		if (checkpoints.length > 0) {
+			time = Math.max(time, checkpointTime(checkpoints[0]) + 1);
+		}
+
+		Path checkpoint = checkpointFolder.toPath().resolve("checkpoint-" + time + ".bin");
+		Path temp = checkpointFolder.toPath().resolve("checkpoint-" + time + ".bin.tmp");
+		deleteUnfinished();
+		TableSnapshot.write(table, temp.toFile());
+		Files.move(temp, checkpoint, StandardCopyOption.ATOMIC_MOVE);
+
+		checkpoints = findCheckpoints(checkpointFolder);
+		for (int i = checkpointsKept; i < checkpoints.length; i++) {
+			Files.deleteIfExists(checkpoints[i].toPath());
+		}
+
+		System.out.println("Checkpointed " + table.numEntries + " table entries to " + checkpoint + " in " +
+				(System.currentTimeMillis() - startTime) + " ms");
+		return checkpoint.toFile();
+	}
+
+	// Checkpoints that were being written when the server crashed
+	private void deleteUnfinished() throws IOException {
+		File[] unfinished = checkpointFolder.listFiles((folder, name) -> name.endsWith(".bin.tmp"));
+		for (File file : unfinished == null ? new File[0] : unfinished) {
+			Files.deleteIfExists(file.toPath());
+		}
+	}
+
+	private void checkpointOrLog() {
+		try {
+			checkpoint();
+		}
+		catch (IOException e) {
+			System.out.println("Could not checkpoint the table: " + e.getMessage());
+		}
+	}
+
+	// Checkpoints on a background thread every so many minutes, and once more when the server shuts down
+	public void start(long intervalMinutes) {
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "TableCheckpointer");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::checkpointOrLog, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			// A scheduled checkpoint already being written finishes first, since this waits for the lock
+			scheduler.shutdown();
+			checkpointOrLog();
+		}, "TableCheckpointerShutdown"));
+	}
+}
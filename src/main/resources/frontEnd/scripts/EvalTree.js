@@ -1,13 +1,30 @@
-const SERVER_PATH = "/solve/";
+const SOLVE_PATH = "/solve/";
+const ANALYZE_PATH = "/analyze/";
+
+// The server answers with bounds, rather than an evaluation, when a solve runs out of time (see its X-Evaluation header)
+// Those positions get an evaluation of null, since only an exact one can be shown
+function readEvaluation(response) {
+	return response.text().then(text => response.headers.get("X-Evaluation") === "bounds" ? null : parseInt(text));
+}
+
+// /analyze/ answers with one field per column. A full column is empty, and gets undefined
+// A column that ran out of time holds its two bounds separated by a colon, and gets null like readEvaluation
+function readChildEvaluations(response) {
+	return response.text().then(text => text.split(',').map(field => {
+		if (field === "") {
+			return undefined;
+		}
+		return field.includes(":") ? null : parseInt(field);
+	}));
+}
 
 export class EvalTree {
 	constructor(width, treeIniailizedCallback) {
 		this.width = width;
 
-		fetch(SERVER_PATH)
-			.then(response => response.text())
-			.then(text => {
-				const evaluation = parseInt(text);
+		fetch(SOLVE_PATH)
+			.then(readEvaluation)
+			.then(evaluation => {
 				this.root = this.createNode(evaluation);
 				this.current = this.root;
 				treeIniailizedCallback();
@@ -44,17 +61,21 @@ export class EvalTree {
 		return this.current.children[colIndex].eval;
 	}
 	
-	fetchChildEval(moveHistory, colIndex, childReadyCallback) {
-		/* Sets a child node equal to a new node, whose evaulation is fetched from the server
+	fetchChildrenEvals(moveHistory, childrenReadyCallback) {
+		/* Sets every missing child of the current node to a new node, with all evaluations fetched in one /analyze/ request
 		moveHistory is an int[] of prior moves, and should be provided by the caller
-		colIndex specify which child is to be fetched and set
-		callback is called with the new evaluation as a parameter after fetch resolves */
-		fetch(SERVER_PATH + moveHistory.join('') + colIndex)
-			.then(response => response.text())
-			.then(text => {
-				const evaluation = parseInt(text);
-				this.current.children[colIndex] = this.createNode(evaluation, this.current);
-				childReadyCallback();
+		Children that were already fetched keep their nodes, so their own children are not lost
+		callback is called after fetch resolves */
+		const node = this.current;
+		fetch(ANALYZE_PATH + moveHistory.join(''))
+			.then(readChildEvaluations)
+			.then(evaluations => {
+				for (const [colIndex, evaluation] of evaluations.entries()) {
+					if (evaluation !== undefined && node.children[colIndex] === undefined) {
+						node.children[colIndex] = this.createNode(evaluation, node);
+					}
+				}
+				childrenReadyCallback();
 			});
 	}
 }
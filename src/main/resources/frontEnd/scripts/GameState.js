@@ -62,19 +62,23 @@ export class GameState {
 		return this.evalTree.getCurrentEval();
 	}
 	fetchChildrenEvals() {
-		this.childrenState.setAllPending();
-		for (let colIndex = 0; colIndex < this.width; colIndex++) {
-			const setReady = () => { this.childrenState.setChildReady(colIndex); }
+		// Fetches every child's evaluation in one request, unless none of them is still needed
+		// A column that cannot be played, or whose eval has already been fetched, does not need fetching
+		const needsFetch = [...Array(this.width).keys()].some(colIndex =>
+			this.canLegallyPlay(colIndex) && this.getChildEval(colIndex) === undefined);
 
-			if (!this.canLegallyPlay(colIndex) || this.getChildEval(colIndex) !== undefined) {
-				// Condition hits if we cannot play the column, if the eval has already been fetched
-				// Either way, it is ready because we do not need to fetch it
-				setReady();
+		this.childrenState.setAllPending();
+		const setAllReady = () => {
+			for (let colIndex = 0; colIndex < this.width; colIndex++) {
+				this.childrenState.setChildReady(colIndex);
 			}
+		}
 
-			else {
-				this.evalTree.fetchChildEval(this.moveHistory, colIndex, setReady);
-			}
+		if (needsFetch) {
+			this.evalTree.fetchChildrenEvals(this.moveHistory, setAllReady);
+		}
+		else {
+			setAllReady();
 		}
 	}
 	fetchAlignment(callback) {
@@ -84,6 +88,10 @@ export class GameState {
 	}
 	gameIsWon() {
 		const evaluation = this.getCurrentEval();
+		// Won positions are always evaluated exactly, so an unknown one is not won
+		if (evaluation === null) {
+			return false;
+		}
 		const winningMoveNumber = evaluation > 0 ? evaluation * 2 - 1 : evaluation * -2;
 		return this.moveCount() == winningMoveNumber
 	}
@@ -7,6 +7,7 @@ const PLAYER_PULSES = ["pulse-yellow", "pulse-red"];
 const PLAYER_COLORS = ["Yellow", "Red"];
 const GAME_IS_DRAW = "The Game is a Draw";
 const GAME_WILL_DRAW = "Both Players Can Force a Draw";
+const EVALUATION_UNKNOWN = "Too Deep to Solve in Time";
 function evaluationMessage(playerIndex, movesUntilWin) {
 	return movesUntilWin == 1 ?
 		`${PLAYER_COLORS[playerIndex]} Can Win in ${movesUntilWin} Move` :
@@ -166,6 +167,9 @@ export class VisualGame {
 		return 0;
 	}
 	getBoxMessage(totalMoves, absoluteEval) {
+		if (absoluteEval === null) {
+			return EVALUATION_UNKNOWN;
+		}
 		if (absoluteEval == 0) {
 			return this.gameState.gameIsDrawn() ? GAME_IS_DRAW : GAME_WILL_DRAW;
 		}
@@ -200,13 +204,18 @@ export class VisualGame {
 			if (childEval === undefined) {
 				continue;
 			}
+			if (childEval === null) {
+				dropOption.innerHTML = "?";
+				continue;
+			}
 			if (childEval != positionEval) {
 				hidePulses = false;
 			}
 			dropOption.innerHTML = this.getRelativeEval(totalMoves, childEval);
 		}
 
-		if (hidePulses) {
+		// Without the position's own evaluation, no child can be shown to keep it
+		if (hidePulses || positionEval === null) {
 			return;
 		}
 
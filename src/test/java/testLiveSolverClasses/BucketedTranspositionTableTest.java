@@ -0,0 +1,96 @@
+package testLiveSolverClasses;
+
+import liveSolverClasses.BucketedTranspositionTable;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BucketedTranspositionTableTest {
+    static BucketedTranspositionTable table;
+
+    static long[] bucketKeys;
+
+    // Keys which all land in the same bucket
+    static long bucketKey(int i) {
+        return bucketKeys[i];
+    }
+
+    @BeforeAll
+    static void createTable() {
+        table = new BucketedTranspositionTable();
+
+        // Search upwards from a real key, for more keys that share its bucket
+        bucketKeys = new long[BucketedTranspositionTable.bucketSize + 1];
+        bucketKeys[0] = 0xF9F3EFCF87L;
+        long key = bucketKeys[0];
+        for (int i = 1; i < bucketKeys.length; i++) {
+            do {
+                key++;
+            } while (table.getBucket(key) != table.getBucket(bucketKeys[0]));
+            bucketKeys[i] = key;
+        }
+    }
+
+    @BeforeEach
+    void resetTable() {
+        table.resetTable();
+        table.put(bucketKey(0), 1, 10);
+    }
+
+    @Test
+    void testPutGet() {
+        assertEquals(1, table.get(bucketKey(0)));
+    }
+
+    // Unlike the direct mapped tables, a whole bucket of colliding keys can be stored at once
+    @Test
+    void testBucketHoldsCollisions() {
+        for (int i = 1; i < BucketedTranspositionTable.bucketSize; i++) {
+            table.put(bucketKey(i), i + 1, 10);
+        }
+
+        for (int i = 0; i < BucketedTranspositionTable.bucketSize; i++) {
+            assertEquals(i + 1, table.get(bucketKey(i)));
+        }
+    }
+
+    @Test
+    void testSameKeyOverwrites() {
+        table.put(bucketKey(0), 2, 10);
+        assertEquals(2, table.get(bucketKey(0)));
+    }
+
+    // In a full bucket, the entry with the most moves played is evicted
+    @Test
+    void testPrefersFewerMovesPlayed() {
+        for (int i = 1; i < BucketedTranspositionTable.bucketSize; i++) {
+            table.put(bucketKey(i), i + 1, i == 3 ? 30 : 10);
+        }
+        table.put(bucketKey(8), 9, 20);
+
+        assertEquals(0, table.get(bucketKey(3)));
+        assertEquals(9, table.get(bucketKey(8)));
+        assertEquals(1, table.get(bucketKey(0)));
+    }
+
+    // An entry from an older search is evicted first, even if it took more work
+    @Test
+    void testEvictsOlderGenerations() {
+        table.newSearch();
+        for (int i = 1; i < BucketedTranspositionTable.bucketSize; i++) {
+            table.put(bucketKey(i), i + 1, 30);
+        }
+        table.put(bucketKey(8), 9, 30);
+
+        assertEquals(0, table.get(bucketKey(0)));
+        assertEquals(9, table.get(bucketKey(8)));
+    }
+
+    @Test
+    void testReset() {
+        table.resetTable();
+        assertEquals(0, table.get(bucketKey(0)));
+    }
+}
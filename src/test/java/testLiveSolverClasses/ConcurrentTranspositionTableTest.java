@@ -0,0 +1,66 @@
+package testLiveSolverClasses;
+
+import liveSolverClasses.ConcurrentTranspositionTable;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentTranspositionTableTest {
+    static ConcurrentTranspositionTable table;
+
+    @BeforeAll
+    static void createTable() {
+        table = new ConcurrentTranspositionTable();
+    }
+
+    @BeforeEach
+    void resetTable() {
+        table.resetTable();
+        table.put(0xF9F3EFCF87L, 1);
+    }
+
+    @Test
+    void testPutGet() {
+        assertEquals(1, table.get(0xF9F3EFCF87L));
+    }
+
+    @Test
+    void testCollision() {
+        assertEquals(1, table.get(0xF9F3EFCF87L));
+
+        table.put(0x17D185AB85C4AL, 2);
+        assertEquals(2, table.get(0x17D185AB85C4AL));
+        assertEquals(0, table.get(0xF9F3EFCF87L));
+    }
+
+    @Test
+    void testReset() {
+        table.resetTable();
+        assertEquals(0, table.get(0xF9F3EFCF87L));
+    }
+
+    // Two threads fight over the same slot, and every read must be a whole entry from one of them
+    @Test
+    void testNoTornEntries() throws InterruptedException {
+        long firstKey = 0xF9F3EFCF87L;
+        long secondKey = 0x17D185AB85C4AL;
+
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 1_000_000; i++) {
+                table.put(firstKey, 1);
+                table.put(secondKey, 2);
+            }
+        });
+        writer.start();
+
+        for (int i = 0; i < 1_000_000; i++) {
+            int firstEval = table.get(firstKey);
+            int secondEval = table.get(secondKey);
+            assertTrue(firstEval == 0 || firstEval == 1);
+            assertTrue(secondEval == 0 || secondEval == 2);
+        }
+        writer.join();
+    }
+}
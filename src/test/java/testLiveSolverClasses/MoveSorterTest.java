@@ -89,4 +89,17 @@ public class MoveSorterTest {
         assertEquals(0, moveSorter.getNext());
 
     }
+
+    // A reset sorter is empty, and sorts again from scratch
+    @Test
+    void testReset() {
+        moveSorter.add(col0, 5);
+        moveSorter.add(col1, 6);
+        moveSorter.reset();
+        assertEquals(0, moveSorter.getNext());
+
+        moveSorter.add(col2, 1);
+        assertEquals(col2, moveSorter.getNext());
+        assertEquals(0, moveSorter.getNext());
+    }
 }
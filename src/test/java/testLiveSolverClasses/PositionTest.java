@@ -58,11 +58,11 @@ class PositionTest {
     // Tests that a position will fit into 63 (unsigned) long bits
     @Test
     void testBitboardSize() {
-        // This needs to be true for the Chinese Remainder Theorem to hold in the transposition table
-        // We really only store 31 bits of the key
-        // We index based on numEntries, which is roughly 2^23
-        // So to make the Chinese Remainder Theorem hold, the true key size must be <= (31 + 23 = 54 bits)
-        assertTrue(Position.WIDTH * (Position.HEIGHT + 1) <= 54);
+        // This needs to be true for the transposition table to tell keys apart
+        // We really only store 32 bits of the hashed key
+        // We index with the top bits of the hash, and there are always at least 2^17 entries
+        // So the true key size must be <= (32 + 17 = 49 bits)
+        assertTrue(Position.WIDTH * (Position.HEIGHT + 1) <= 49);
     }
 
     @Test
@@ -151,6 +151,15 @@ class PositionTest {
         assertEquals(blankPosition.getKey(), blankPosition.getMirrorKey());
     }
 
+    @Test
+    void testGetCanonicalKey() {
+        Position mirrorComplex = new Position(0x4E0A321C100L, 0x1CFBF3E7CF80L, 29);
+        long smallerKey = Math.min(complexPosition.getKey(), mirrorComplex.getKey());
+
+        assertEquals(smallerKey, complexPosition.getCanonicalKey());
+        assertEquals(smallerKey, mirrorComplex.getCanonicalKey());
+    }
+
     @ParameterizedTest
     @ValueSource(ints = { 0, 1, 2, 3, 4, 5, 6 })
     void testCanPlayBlank(int col) {
@@ -201,6 +210,17 @@ class PositionTest {
         assertTrue(complexPosition.isWinningMove(5));
     }
 
+    // Undoing a move gives back exactly the position before it
+    @Test
+    void testUndoMove() {
+        Position copy = new Position(complexPosition);
+        copy.playMove(0x4000000L);
+        copy.undoMove(0x4000000L);
+        assertEquals(complexPosition.position, copy.position);
+        assertEquals(complexPosition.mask, copy.mask);
+        assertEquals(complexPosition.movesPlayed, copy.movesPlayed);
+    }
+
     // Test canWinNext in each possible way
     @Test
     void testCanWinNextVertical() {
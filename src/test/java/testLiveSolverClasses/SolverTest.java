@@ -5,12 +5,21 @@ import java.util.Scanner;
 import java.io.File;
 import java.nio.file.Path;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.List;
 
+import liveSolverClasses.ConcurrentTranspositionTable;
 import liveSolverClasses.Position;
+import liveSolverClasses.SearchStatistics;
+import liveSolverClasses.SolveDeadline;
 import liveSolverClasses.Solver;
 import miscHelpers.Utils;
 
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -61,6 +70,218 @@ public class SolverTest {
             assertEquals(evalExpected, solver.solve(position));
     }
 
+    // Every position from the test file, played out, along with its expected eval
+    static int[] solveAll(Solver otherSolver) throws IOException {
+        Path testCasesPath = Paths.get(Utils.getProjectRoot(), Utils.testResources, testFile);
+        List<String> lines = Files.readAllLines(testCasesPath);
+        int[] evals = new int[lines.size()];
+
+        for (int i = 0; i < lines.size(); i++) {
+            Position otherPosition = new Position();
+            for (char move : lines.get(i).split(" ")[0].toCharArray()) {
+                otherPosition.playCol(Character.getNumericValue(move));
+            }
+            evals[i] = otherSolver.solve(otherPosition);
+        }
+        return evals;
+    }
+
+    static int[] expectedEvals() throws IOException {
+        Path testCasesPath = Paths.get(Utils.getProjectRoot(), Utils.testResources, testFile);
+        return Files.readAllLines(testCasesPath).stream().mapToInt(line -> Integer.parseInt(line.split(" ")[1])).toArray();
+    }
+
+    // The Lazy SMP solver must agree with the expected evals no matter which thread finishes first
+    @Test
+    void testParallelSolve() throws IOException {
+        Solver parallelSolver = new Solver(new ConcurrentTranspositionTable(), 4);
+        assertArrayEquals(expectedEvals(), solveAll(parallelSolver));
+    }
+
+    // Same for Young Brothers Wait, where cutoffs cancel sibling tasks part way through
+    @Test
+    void testYoungBrothersSolve() throws IOException {
+        Solver parallelSolver = new Solver(new ConcurrentTranspositionTable(), 4, Solver.ParallelMode.YOUNG_BROTHERS);
+        assertArrayEquals(expectedEvals(), solveAll(parallelSolver));
+    }
+
+    // The serial search plays and takes back moves on one position, with a sorter per depth
+    // So after the solver is created, solving should not allocate anything on the heap
+    @Test
+    void testSolveDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        Solver allocationSolver = new Solver();
+
+        // The first solve can allocate while classes are being loaded, so only measure the later ones
+        String[] movesList = {"1305504441", "21640460120446", "224551222454"};
+        for (String moves : movesList) {
+            Position allocationPosition = new Position();
+            for (char move : moves.toCharArray()) {
+                allocationPosition.playCol(Character.getNumericValue(move));
+            }
+
+            long bytesBefore = threadBean.getThreadAllocatedBytes(threadId);
+            allocationSolver.solve(allocationPosition);
+            long bytesAfter = threadBean.getThreadAllocatedBytes(threadId);
+
+            if (!moves.equals(movesList[0])) {
+                assertTrue(bytesAfter - bytesBefore < 1024, "Solving " + moves + " allocated " + (bytesAfter - bytesBefore) + " bytes");
+            }
+            assertEquals(moves.length(), allocationPosition.movesPlayed);
+        }
+    }
+
+    // Analyzing a position should give the same score for each column as solving each child separately
+    @Test
+    void testAnalyze() {
+        Position analyzePosition = new Position();
+        for (char move : "21640460120446".toCharArray()) {
+            analyzePosition.playCol(Character.getNumericValue(move));
+        }
+        int[] scores = new Solver().analyze(analyzePosition);
+
+        for (int col = 0; col < Position.WIDTH; col++) {
+            if (!analyzePosition.canPlay(col)) {
+                assertEquals(Solver.illegalMove, scores[col]);
+                continue;
+            }
+
+            Position child = new Position(analyzePosition);
+            child.playCol(col);
+            if (analyzePosition.isWinningMove(col)) {
+                assertTrue(scores[col] > 0);
+            }
+            else {
+                assertEquals(-new Solver().solve(child), scores[col]);
+            }
+        }
+    }
+
+    // Statistics should describe the last solve only, and add up the same whether or not threads help
+    @Test
+    void testStatistics() {
+        Position statisticsPosition = new Position();
+        for (char move : "21640460120446".toCharArray()) {
+            statisticsPosition.playCol(Character.getNumericValue(move));
+        }
+
+        Solver statisticsSolver = new Solver();
+        assertNull(statisticsSolver.getStatistics());
+        statisticsSolver.enableStatistics();
+        statisticsSolver.solve(statisticsPosition);
+
+        SearchStatistics statistics = statisticsSolver.getStatistics();
+        assertTrue(statistics.totalNodes() > 0);
+        assertTrue(statistics.nullWindowIterations > 0);
+        assertTrue(statistics.totalTableHits() <= statistics.totalTableProbes());
+        assertTrue(statistics.totalTableOverwrites() <= statistics.totalTableStores());
+        assertEquals(0, statistics.nodes[statisticsPosition.movesPlayed - 1]);
+
+        // Solving again with a warm table takes fewer nodes, which shows the counters were reset
+        long coldNodes = statistics.totalNodes();
+        statisticsSolver.solve(statisticsPosition);
+        assertTrue(statisticsSolver.getStatistics().totalNodes() < coldNodes);
+
+        Solver parallelSolver = new Solver(new ConcurrentTranspositionTable(), 4, Solver.ParallelMode.YOUNG_BROTHERS);
+        parallelSolver.enableStatistics();
+        parallelSolver.solve(statisticsPosition);
+        assertTrue(parallelSolver.getStatistics().totalNodes() > 0);
+    }
+
+    static Position playMoves(String moves) {
+        Position movesPosition = new Position();
+        for (char move : moves.toCharArray()) {
+            movesPosition.playCol(Character.getNumericValue(move));
+        }
+        return movesPosition;
+    }
+
+    // A deadline that never passes gives the exact evals
+    @Test
+    void testDeadlineNeverPasses() throws IOException {
+        Path testCasesPath = Paths.get(Utils.getProjectRoot(), Utils.testResources, testFile);
+        Solver deadlineSolver = new Solver();
+        for (String line : Files.readAllLines(testCasesPath)) {
+            int evalExpected = Integer.parseInt(line.split(" ")[1]);
+            assertEquals(new Solver.Bounds(evalExpected, evalExpected), deadlineSolver.solve(playMoves(line.split(" ")[0]), SolveDeadline.never()));
+        }
+    }
+
+    // Stopping early gives bounds around the true eval, and leaves nothing wrong in the table for the next solve
+    @Test
+    void testDeadlinePasses() {
+        Solver deadlineSolver = new Solver();
+        // Takes tens of milliseconds to solve exactly, so the re-check below stays quick
+        Position deadlinePosition = playMoves("21640460120446");
+        Solver.Bounds bounds = deadlineSolver.solve(deadlinePosition, SolveDeadline.after(1));
+
+        assertFalse(bounds.isExact());
+        assertTrue(bounds.min() <= -3 && -3 <= bounds.max(), "-3 is not in " + bounds);
+        assertEquals(14, deadlinePosition.movesPlayed);
+        assertEquals(-3, deadlineSolver.solve(deadlinePosition));
+    }
+
+    @Test
+    void testDeadlineCancelled() throws InterruptedException {
+        Solver deadlineSolver = new Solver();
+        SolveDeadline deadline = SolveDeadline.never();
+        Thread canceller = new Thread(() -> {
+            try {
+                Thread.sleep(20);
+            }
+            catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            deadline.cancel();
+        });
+        canceller.start();
+
+        // The starting position is a win for the first player
+        Solver.Bounds bounds = deadlineSolver.solve(new Position(), deadline);
+        canceller.join();
+        assertFalse(bounds.isExact());
+        assertTrue(bounds.min() <= 1 && 1 <= bounds.max(), "1 is not in " + bounds);
+    }
+
+    // Analyzing with a deadline gives bounds around each column's score, and the exact scores when there is time
+    @Test
+    void testAnalyzeDeadline() {
+        Position analyzePosition = playMoves("2164046012044");
+        int[] scores = new Solver().analyze(analyzePosition);
+
+        Solver.Bounds[] bounds = new Solver().analyze(analyzePosition, SolveDeadline.after(1));
+        boolean anyInexact = false;
+        for (int col = 0; col < Position.WIDTH; col++) {
+            if (scores[col] == Solver.illegalMove) {
+                assertNull(bounds[col]);
+                continue;
+            }
+            assertTrue(bounds[col].min() <= scores[col] && scores[col] <= bounds[col].max(), scores[col] + " is not in " + bounds[col]);
+            anyInexact |= !bounds[col].isExact();
+        }
+        assertTrue(anyInexact);
+
+        Solver.Bounds[] exactBounds = new Solver().analyze(analyzePosition, SolveDeadline.never());
+        for (int col = 0; col < Position.WIDTH; col++) {
+            assertEquals(scores[col] == Solver.illegalMove ? null : new Solver.Bounds(scores[col], scores[col]), exactBounds[col]);
+        }
+    }
+
+    // Every thread of a multi-threaded solver gives up at the deadline, and the solver still works afterwards
+    @ParameterizedTest
+    @EnumSource(Solver.ParallelMode.class)
+    void testParallelDeadline(Solver.ParallelMode mode) throws IOException {
+        Solver parallelSolver = new Solver(new ConcurrentTranspositionTable(), 4, mode);
+        Position deadlinePosition = playMoves("21640460120446");
+        Solver.Bounds bounds = parallelSolver.solve(deadlinePosition, SolveDeadline.after(1));
+
+        assertFalse(bounds.isExact());
+        assertTrue(bounds.min() <= -3 && -3 <= bounds.max(), "-3 is not in " + bounds);
+        assertEquals(new Solver.Bounds(-3, -3), parallelSolver.solve(deadlinePosition, SolveDeadline.never()));
+        assertArrayEquals(expectedEvals(), solveAll(parallelSolver));
+    }
+
     // Close the file
     @AfterAll
     static void closeFile() {
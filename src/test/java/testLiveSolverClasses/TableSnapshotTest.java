@@ -0,0 +1,116 @@
+package testLiveSolverClasses;
+
+import liveSolverClasses.BucketedTranspositionTable;
+import liveSolverClasses.ConcurrentTranspositionTable;
+import liveSolverClasses.TableSnapshot;
+import liveSolverClasses.TranspositionTable;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TableSnapshotTest {
+    @TempDir
+    Path tempDir;
+
+    File file;
+    int[] keys;
+    byte[] evals;
+    TranspositionTable original;
+
+    // A small table with some positions in it, saved to a snapshot
+    @BeforeEach
+    void saveTable() throws IOException {
+        file = tempDir.resolve("depth0Table.bin").toFile();
+        int numEntries = 1 << TranspositionTable.minLogEntries;
+        keys = new int[numEntries];
+        evals = new byte[numEntries];
+        original = new TranspositionTable(keys, evals);
+
+        Random random = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            original.put(random.nextLong() & 0x1FFFFFFFFFFFFL, random.nextInt(36) + 1);
+        }
+        TableSnapshot.write(keys, evals, file);
+    }
+
+    @Test
+    void testReadBack() throws IOException {
+        TableSnapshot snapshot = new TableSnapshot(file);
+        assertEquals(TranspositionTable.minLogEntries, snapshot.logEntries);
+        assertEquals(TableSnapshot.headerBytes + 5L * keys.length, file.length());
+
+        TranspositionTable table = new TranspositionTable(snapshot);
+        ConcurrentTranspositionTable concurrentTable = new ConcurrentTranspositionTable(snapshot);
+
+        Random random = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            long key = random.nextLong() & 0x1FFFFFFFFFFFFL;
+            random.nextInt();
+            assertEquals(original.get(key), table.get(key));
+            assertEquals(original.get(key), concurrentTable.get(key));
+        }
+        int[] readKeys = new int[keys.length];
+        byte[] readEvals = new byte[evals.length];
+        snapshot.readKeys(0, readKeys, 0, keys.length);
+        snapshot.readEvals(0, readEvals, 0, evals.length);
+        assertArrayEquals(keys, readKeys);
+        assertArrayEquals(evals, readEvals);
+
+        // Part of the entries, into the middle of an array
+        int[] someKeys = new int[10];
+        byte[] someEvals = new byte[10];
+        snapshot.readKeys(100, someKeys, 2, 8);
+        snapshot.readEvals(100, someEvals, 2, 8);
+        for (int i = 0; i < 8; i++) {
+            assertEquals(keys[100 + i], someKeys[2 + i]);
+            assertEquals(evals[100 + i], someEvals[2 + i]);
+        }
+    }
+
+    // Saving a live table gives the same snapshot as saving the arrays it was built from
+    @Test
+    void testWriteLiveTable() throws IOException {
+        ConcurrentTranspositionTable liveTable = new ConcurrentTranspositionTable(keys, evals);
+        File liveFile = tempDir.resolve("live.bin").toFile();
+        TableSnapshot.write(liveTable, liveFile);
+        assertArrayEquals(Files.readAllBytes(file.toPath()), Files.readAllBytes(liveFile.toPath()));
+
+        ConcurrentTranspositionTable bucketedTable = new BucketedTranspositionTable(BucketedTranspositionTable.minLogEntries);
+        assertThrows(IllegalArgumentException.class, () -> TableSnapshot.write(bucketedTable, liveFile));
+    }
+
+    @Test
+    void testCorruptData() throws IOException {
+        try (RandomAccessFile corrupt = new RandomAccessFile(file, "rw")) {
+            corrupt.seek(file.length() - 1);
+            int lastByte = corrupt.read();
+            corrupt.seek(file.length() - 1);
+            corrupt.write(lastByte ^ 1);
+        }
+        IOException thrown = assertThrows(IOException.class, () -> new TableSnapshot(file));
+        assertTrue(thrown.getMessage().contains("checksum"));
+    }
+
+    @Test
+    void testWrongFile() throws IOException {
+        try (RandomAccessFile truncated = new RandomAccessFile(file, "rw")) {
+            truncated.setLength(file.length() - 1);
+        }
+        assertThrows(IOException.class, () -> new TableSnapshot(file));
+
+        try (RandomAccessFile notSnapshot = new RandomAccessFile(file, "rw")) {
+            notSnapshot.writeInt(0);
+        }
+        assertThrows(IOException.class, () -> new TableSnapshot(file));
+    }
+}
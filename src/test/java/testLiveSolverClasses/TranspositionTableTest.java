@@ -1,10 +1,14 @@
 package testLiveSolverClasses;
 
+import liveSolverClasses.ConcurrentTranspositionTable;
 import liveSolverClasses.TranspositionTable;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+import java.util.TreeMap;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class TranspositionTableTest {
@@ -35,13 +39,64 @@ public class TranspositionTableTest {
         assertEquals(1, table.get(0xF9F3EFCF87L));
 
         // This should cause a collision
-        table.put(0xF9F36FCF7EL, 2);
-        assertEquals(2, table.get(0xF9F36FCF7EL));
+        table.put(0x17D185AB85C4AL, 2);
+        assertEquals(2, table.get(0x17D185AB85C4AL));
 
         // Assert that if we look for the old value, we get 0 because it was erased
         assertEquals(0, table.get(0xF9F3EFCF87L));
     }
 
+    // Tables can be sized at runtime, as long as the index and stored hash bits still cover a whole key
+    @Test
+    void testSize() {
+        assertEquals(1 << 20, new TranspositionTable(20).numEntries);
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(TranspositionTable.minLogEntries - 1));
+    }
+
+    // Even the smallest table can tell apart keys which share an index
+    @Test
+    void testSmallTableCollision() {
+        TranspositionTable smallTable = new TranspositionTable(TranspositionTable.minLogEntries);
+        smallTable.put(0xF9F3EFCF87L, 1);
+        assertEquals(0, smallTable.get(0x17D185AB85C4AL));
+        assertEquals(1, smallTable.get(0xF9F3EFCF87L));
+    }
+
+    // Tables saved in the old layout, keyed by key % legacyEntries with the low 32 bits stored, are rebuilt key by key
+    @Test
+    void testLegacyEntries() {
+        int[] legacyKeys = new int[TranspositionTable.legacyEntries];
+        byte[] legacyEvals = new byte[TranspositionTable.legacyEntries];
+        TreeMap<Integer, Long> keysByIndex = new TreeMap<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            long key = random.nextLong() & 0x1FFFFFFFFFFFFL;
+            int index = (int) (key % TranspositionTable.legacyEntries);
+            legacyKeys[index] = (int) key;
+            legacyEvals[index] = (byte) (i % 36 + 1);
+            keysByIndex.put(index, key);
+        }
+
+        // Putting the same keys in index order, the order the old table is read in, gives the same table
+        TranspositionTable expected = new TranspositionTable(23);
+        for (int index : keysByIndex.keySet()) {
+            expected.put(keysByIndex.get(index), legacyEvals[index]);
+        }
+
+        TranspositionTable converted = new TranspositionTable(23);
+        ConcurrentTranspositionTable concurrentConverted = new ConcurrentTranspositionTable(23);
+        assertEquals(keysByIndex.size(), converted.putLegacyEntries(legacyKeys, legacyEvals));
+        concurrentConverted.putLegacyEntries(legacyKeys, legacyEvals);
+        for (long key : keysByIndex.values()) {
+            assertEquals(expected.get(key), converted.get(key));
+            assertEquals(expected.get(key), concurrentConverted.get(key));
+        }
+
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> new ConcurrentTranspositionTable(legacyKeys, legacyEvals));
+        assertTrue(thrown.getMessage().contains("multiply-shift"));
+    }
+
     @Test
     void testReset() {
         table.resetTable();
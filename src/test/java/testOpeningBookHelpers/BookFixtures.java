@@ -0,0 +1,67 @@
+package testOpeningBookHelpers;
+
+import liveSolverClasses.Position;
+import openingBookHelpers.AVLTreeWriter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+// Made up books for the book reader tests
+public class BookFixtures {
+    /* Random keys below 2^49 (like real ones), each with an eval in the range a score can have
+    Seeded by the number of keys, so a test gets the same book every run
+    With includeZero the first key is 0 (the smallest key, the empty board's), so edge cases are always covered */
+    static TreeMap<Long, Byte> randomBook(int numKeys, boolean includeZero) {
+        Random random = new Random(numKeys);
+        TreeMap<Long, Byte> book = new TreeMap<>();
+
+        while (book.size() < numKeys) {
+            long key = includeZero && book.isEmpty() ? 0 : random.nextLong() & 0x1FFFFFFFFFFFFL;
+            book.putIfAbsent(key, (byte) (random.nextInt(37) - 18));
+        }
+        return book;
+    }
+
+    /* Every position after some number of moves (up to 6, before anyone can have won), like a real book at that depth
+    Each has a made up eval, which is the same for a position and its mirror */
+    static TreeMap<Long, Byte> everyPosition(int moves) {
+        TreeMap<Long, Byte> book = new TreeMap<>();
+        addPositions(new Position(), moves, book);
+        return book;
+    }
+
+    private static void addPositions(Position position, int movesLeft, Map<Long, Byte> book) {
+        if (movesLeft == 0) {
+            book.put(position.getKey(), (byte) (position.getCanonicalKey() % 37 - 18));
+            return;
+        }
+        for (int col = 0; col < Position.WIDTH; col++) {
+            Position child = new Position(position);
+            child.playCol(col);
+            addPositions(child, movesLeft - 1, book);
+        }
+    }
+
+    // Writes a book as a tree, the format the other formats are converted from. An empty book is an empty file
+    static void writeTree(Map<Long, Byte> book, File treeFile) throws IOException {
+        AVLTreeWriter treeWriter = new AVLTreeWriter();
+        for (Map.Entry<Long, Byte> entry : book.entrySet()) {
+            treeWriter.insertNode(entry.getKey(), entry.getValue());
+        }
+
+        try (FileOutputStream out = new FileOutputStream(treeFile)) {
+            if (!book.isEmpty()) {
+                treeWriter.writeContent(out);
+            }
+        }
+    }
+
+    // Packs each entry the way books hold them, with the key above the eval's byte
+    static long[] pack(Map<Long, Byte> book) {
+        return book.entrySet().stream().mapToLong(entry -> entry.getKey() << 8 | (entry.getValue() & 0xFF)).toArray();
+    }
+}
@@ -0,0 +1,119 @@
+package testOpeningBookHelpers;
+
+import openingBookHelpers.BookJournal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookJournalTest {
+    @TempDir
+    Path tempDir;
+
+    private final long[] keys = { 5, 17, 1L << 40, 123456789, 42 };
+
+    @Test
+    void testFreshJournal() throws IOException {
+        try (BookJournal journal = new BookJournal(tempDir.toFile(), 3, keys)) {
+            assertEquals(0, journal.getNumSolved());
+            for (int i = 0; i < keys.length; i++) {
+                assertFalse(journal.isSolved(i));
+            }
+        }
+    }
+
+    @Test
+    void testResumeFromCheckpoint() throws IOException {
+        try (BookJournal journal = new BookJournal(tempDir.toFile(), 3, keys)) {
+            journal.record(0, -4);
+            journal.record(3, 7);
+            journal.checkpoint();
+            journal.record(1, 2);
+        }
+
+        // A record cut off partway through
+        try (FileOutputStream out = new FileOutputStream(tempDir.resolve("depth3Journal.bin").toFile(), true)) {
+            out.write(new byte[] { 0, 0, 0 });
+        }
+
+        // Only what was checkpointed comes back
+        try (BookJournal journal = new BookJournal(tempDir.toFile(), 3, keys)) {
+            assertEquals(2, journal.getNumSolved());
+            assertTrue(journal.isSolved(0));
+            assertFalse(journal.isSolved(1));
+            assertTrue(journal.isSolved(3));
+            assertEquals(Map.of(0, -4L, 3, 7L), records(journal));
+
+            // And the journal carries on from there, with values as wide as a long
+            journal.record(4, 1L << 60);
+            journal.checkpoint();
+        }
+
+        try (BookJournal journal = new BookJournal(tempDir.toFile(), 3, keys)) {
+            assertEquals(3, journal.getNumSolved());
+            assertEquals(1L << 60, records(journal).get(4));
+        }
+    }
+
+    // The value of every record, by index, checking that each comes with its position's key
+    private Map<Integer, Long> records(BookJournal journal) throws IOException {
+        Map<Integer, Long> records = new HashMap<>();
+        journal.forEachRecord((index, key, value) -> {
+            assertEquals(keys[index], key);
+            assertNull(records.put(index, value));
+        });
+        return records;
+    }
+
+    // Records are streamed back before a checkpoint, and a position recorded twice only comes out once
+    @Test
+    void testForEachRecord() throws IOException {
+        try (BookJournal journal = new BookJournal(tempDir.toFile(), 3, keys)) {
+            journal.record(2, -1);
+            journal.record(1, 5);
+            journal.record(2, -1);
+
+            List<Integer> indices = new ArrayList<>();
+            journal.forEachRecord((index, key, value) -> indices.add(index));
+            assertEquals(List.of(2, 1), indices);
+            assertEquals(Map.of(1, 5L, 2, -1L), records(journal));
+        }
+    }
+
+    @Test
+    void testDifferentKeys() throws IOException {
+        try (BookJournal journal = new BookJournal(tempDir.toFile(), 3, keys)) {
+            journal.record(2, 1);
+            journal.checkpoint();
+        }
+
+        long[] otherKeys = keys.clone();
+        otherKeys[2]++;
+        assertThrows(IOException.class, () -> new BookJournal(tempDir.toFile(), 3, otherKeys));
+        assertThrows(IOException.class, () -> new BookJournal(tempDir.toFile(), 3, new long[] { 1, 2 }));
+    }
+
+    @Test
+    void testDelete() throws IOException {
+        BookJournal journal = new BookJournal(tempDir.toFile(), 3, keys);
+        journal.record(0, 0);
+        journal.checkpoint();
+        journal.delete();
+
+        File[] left = tempDir.toFile().listFiles();
+        assertNotNull(left);
+        assertEquals(0, left.length);
+        assertFalse(Files.exists(tempDir.resolve("depth3Journal.bin")));
+    }
+}
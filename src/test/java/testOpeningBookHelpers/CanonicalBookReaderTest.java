@@ -0,0 +1,49 @@
+package testOpeningBookHelpers;
+
+import liveSolverClasses.Position;
+import openingBookHelpers.CanonicalBookReader;
+import openingBookHelpers.HashedBookReader;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CanonicalBookReaderTest {
+    @Test
+    void testCanonicalEntries() {
+        Map<Long, Byte> book = BookFixtures.everyPosition(3);
+        long[] canonical = CanonicalBookReader.canonicalEntries(BookFixtures.pack(book));
+
+        // Symmetric positions have no separate mirror, so a little over half are kept
+        int symmetric = 0;
+        for (long key : book.keySet()) {
+            if (Position.mirrorKey(key) == key) {
+                symmetric++;
+            }
+        }
+        assertEquals((book.size() + symmetric) / 2, canonical.length);
+
+        for (long entry : canonical) {
+            assertEquals(Position.canonicalKey(entry >>> 8), entry >>> 8);
+            assertEquals((int) book.get(entry >>> 8), (byte) entry);
+        }
+    }
+
+    @Test
+    void testGet() throws Exception {
+        Map<Long, Byte> book = BookFixtures.everyPosition(3);
+        HashedBookReader canonicalReader = new HashedBookReader(CanonicalBookReader.canonicalEntries(BookFixtures.pack(book)), false);
+        CanonicalBookReader reader = new CanonicalBookReader(canonicalReader);
+
+        // Every position is found, including the ones whose key was left out
+        for (Map.Entry<Long, Byte> entry : book.entrySet()) {
+            assertEquals((int) entry.getValue(), reader.get(entry.getKey()));
+        }
+
+        Position missing = new Position();
+        missing.playCol(3);
+        assertThrows(IllegalArgumentException.class, () -> reader.get(missing.getKey()));
+    }
+}
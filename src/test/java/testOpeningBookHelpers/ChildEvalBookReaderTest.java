@@ -0,0 +1,87 @@
+package testOpeningBookHelpers;
+
+import liveSolverClasses.Position;
+import liveSolverClasses.Solver;
+import openingBookHelpers.ChildEvalBookReader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChildEvalBookReaderTest {
+    @TempDir
+    Path tempDir;
+
+    // Random evals for every child, with some full columns, and evals covering the whole range
+    int[] randomChildEvals(Random random) {
+        int[] childEvals = new int[Position.WIDTH];
+        for (int col = 0; col < Position.WIDTH; col++) {
+            childEvals[col] = random.nextInt(8) == 0 ? Solver.illegalMove : random.nextInt(43) - 21;
+        }
+        return childEvals;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 1, 2, 3, 100, 1000 })
+    void testGet(int numKeys) throws IOException {
+        Random random = new Random(numKeys);
+        TreeMap<Long, int[]> written = new TreeMap<>();
+        while (written.size() < numKeys) {
+            int[] evals = randomChildEvals(random);
+            evals = Arrays.copyOf(evals, Position.WIDTH + 1);
+            evals[Position.WIDTH] = random.nextInt(37) - 18;
+            written.put(random.nextLong() & 0x1FFFFFFFFFFFFL, evals);
+        }
+
+        long[] keys = new long[numKeys];
+        long[] packed = new long[numKeys];
+        int i = 0;
+        for (long key : written.keySet()) {
+            int[] evals = written.get(key);
+            keys[i] = key;
+            packed[i++] = ChildEvalBookReader.pack(evals[Position.WIDTH], evals);
+        }
+
+        File file = tempDir.resolve("depth0Book.bin").toFile();
+        ChildEvalBookReader.writeBook(keys, packed, file);
+        ChildEvalBookReader reader = new ChildEvalBookReader(file);
+        assertEquals(numKeys * ChildEvalBookReader.bytesPerEntry, file.length());
+
+        int[] childEvals = new int[Position.WIDTH];
+        for (long key : written.keySet()) {
+            int[] evals = written.get(key);
+            assertEquals(evals[Position.WIDTH], reader.get(key));
+
+            reader.getChildren(key, childEvals);
+            for (int col = 0; col < Position.WIDTH; col++) {
+                assertEquals(evals[col], childEvals[col]);
+            }
+        }
+
+        long missingKey = 1;
+        while (written.containsKey(missingKey)) {
+            missingKey++;
+        }
+        long finalMissingKey = missingKey;
+        assertThrows(IllegalArgumentException.class, () -> reader.get(finalMissingKey));
+        assertThrows(IllegalArgumentException.class, () -> reader.getChildren(finalMissingKey, childEvals));
+    }
+
+    @Test
+    void testUnsortedKeys() {
+        File file = tempDir.resolve("depth0Book.bin").toFile();
+        long[] packed = new long[2];
+        assertThrows(IllegalArgumentException.class, () -> ChildEvalBookReader.writeBook(new long[] { 5, 3 }, packed, file));
+        assertThrows(IllegalArgumentException.class, () -> ChildEvalBookReader.writeBook(new long[] { 3, 3 }, packed, file));
+    }
+}
@@ -0,0 +1,104 @@
+package testOpeningBookHelpers;
+
+import openingBookHelpers.CompressedBookReader;
+import openingBookHelpers.TreeReader;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressedBookReaderTest {
+    @TempDir
+    Path tempDir;
+
+    // Keys and evals which were written to the book, in sorted order
+    TreeMap<Long, Byte> written;
+    File treeFile;
+    File compressedFile;
+
+    // Writes a tree book of random keys (plus the smallest key, 0), then converts it
+    void writeBooks(int numKeys) throws IOException {
+        written = BookFixtures.randomBook(numKeys, true);
+        BookFixtures.writeTree(written, treeFile);
+        CompressedBookReader.writeBook(new TreeReader(treeFile).readEntries(), compressedFile);
+    }
+
+    @BeforeEach
+    void setUp() {
+        treeFile = tempDir.resolve("depth0Book.bin").toFile();
+        compressedFile = tempDir.resolve("depth0Compressed.bin").toFile();
+    }
+
+    // Sizes which fill the last block, and ones which don't
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 2, 63, 64, 65, 1000, 20000 })
+    void testGet(int numKeys) throws IOException {
+        writeBooks(numKeys);
+        CompressedBookReader compressedReader = new CompressedBookReader(compressedFile);
+
+        for (Map.Entry<Long, Byte> entry : written.entrySet()) {
+            assertEquals((int) entry.getValue(), compressedReader.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    void testGetException() throws IOException {
+        writeBooks(1000);
+        CompressedBookReader compressedReader = new CompressedBookReader(compressedFile);
+
+        // Keys between two written keys, and past the last one
+        long[] missingKeys = { written.firstKey() + 1, written.higherKey(written.firstKey()) - 1, written.lastKey() + 1 };
+        for (long missingKey : missingKeys) {
+            IllegalArgumentException thrown = assertThrows(
+                    IllegalArgumentException.class,
+                    () -> compressedReader.get(missingKey)
+            );
+            assertEquals("No key of " + missingKey + " found", thrown.getMessage());
+        }
+    }
+
+    @Test
+    void testIterator() throws IOException {
+        writeBooks(1000);
+        CompressedBookReader compressedReader = new CompressedBookReader(compressedFile);
+
+        int i = 0;
+        Long[] expectedKeys = written.keySet().toArray(new Long[0]);
+        for (long key : compressedReader) {
+            assertEquals(expectedKeys[i], key);
+            i++;
+        }
+        assertEquals(expectedKeys.length, i);
+    }
+
+    @Test
+    void testEmptyBook() throws IOException {
+        writeBooks(0);
+        CompressedBookReader compressedReader = new CompressedBookReader(compressedFile);
+
+        assertThrows(IllegalArgumentException.class, () -> compressedReader.get(0));
+        assertFalse(compressedReader.iterator().hasNext());
+    }
+
+    // The keys of real positions are close together, so they take well under half of the 10 bytes per entry
+    // Random keys are spread over all 2^49, so their gaps take most of 5 bytes, but that is still smaller than a tree
+    @Test
+    void testSmallerThanTree() throws IOException {
+        writeBooks(20000);
+        assertTrue(compressedFile.length() < treeFile.length());
+
+        BookFixtures.writeTree(BookFixtures.everyPosition(6), treeFile);
+        CompressedBookReader.writeBook(new TreeReader(treeFile).readEntries(), compressedFile);
+        assertTrue(compressedFile.length() * 2 < treeFile.length());
+    }
+}
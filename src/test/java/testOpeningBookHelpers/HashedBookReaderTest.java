@@ -0,0 +1,57 @@
+package testOpeningBookHelpers;
+
+import openingBookHelpers.HashedBookReader;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashedBookReaderTest {
+    // Keys and evals which went into the reader, including the key 0 of the empty board
+    Map<Long, Byte> written;
+
+    long[] makeEntries(int numKeys) {
+        written = BookFixtures.randomBook(numKeys, true);
+        return BookFixtures.pack(written);
+    }
+
+    long missingKey() {
+        long key = 1;
+        while (written.containsKey(key)) {
+            key++;
+        }
+        return key;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 2, 3, 100, 4096, 20000 })
+    void testGetOpenAddressing(int numKeys) {
+        HashedBookReader reader = new HashedBookReader(makeEntries(numKeys), false);
+        for (Map.Entry<Long, Byte> entry : written.entrySet()) {
+            assertEquals((int) entry.getValue(), reader.get(entry.getKey()));
+        }
+        assertThrows(IllegalArgumentException.class, () -> reader.get(missingKey()));
+    }
+
+    // The perfect hash has exactly one slot per key
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 2, 3, 100, 4096, 20000 })
+    void testGetPerfectHash(int numKeys) {
+        HashedBookReader reader = new HashedBookReader(makeEntries(numKeys), true);
+        for (Map.Entry<Long, Byte> entry : written.entrySet()) {
+            assertEquals((int) entry.getValue(), reader.get(entry.getKey()));
+        }
+        assertThrows(IllegalArgumentException.class, () -> reader.get(missingKey()));
+        assertTrue(reader.bytesUsed() < 10L * numKeys + 8);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    void testDuplicateKey(boolean perfectHash) {
+        long[] entries = { 5L << 8 | 1, 7L << 8 | 2, 5L << 8 | 3 };
+        assertThrows(IllegalArgumentException.class, () -> new HashedBookReader(entries, perfectHash));
+    }
+}
@@ -0,0 +1,93 @@
+package testOpeningBookHelpers;
+
+import openingBookHelpers.MappedBookReader;
+import openingBookHelpers.TreeReader;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedBookReaderTest {
+    @TempDir
+    Path tempDir;
+
+    // Keys and evals which were written to the book
+    Map<Long, Byte> written;
+    File treeFile;
+    File mappedFile;
+
+    // Writes a tree book of random keys, then converts it
+    void writeBooks(int numKeys) throws IOException {
+        written = BookFixtures.randomBook(numKeys, false);
+        BookFixtures.writeTree(written, treeFile);
+        MappedBookReader.writeBook(new TreeReader(treeFile).readEntries(), mappedFile);
+    }
+
+    @BeforeEach
+    void setUp() {
+        treeFile = tempDir.resolve("depth0Book.bin").toFile();
+        mappedFile = tempDir.resolve("depth0Mapped.bin").toFile();
+    }
+
+    // Sizes which fill the last level of the layout, and ones which don't
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 2, 3, 7, 100, 1023, 5000 })
+    void testGet(int numKeys) throws IOException {
+        writeBooks(numKeys);
+        MappedBookReader mappedReader = new MappedBookReader(mappedFile);
+
+        assertEquals(numKeys * MappedBookReader.bytesPerEntry, mappedFile.length());
+        for (Map.Entry<Long, Byte> entry : written.entrySet()) {
+            assertEquals((int) entry.getValue(), mappedReader.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    void testGetException() throws IOException {
+        writeBooks(100);
+        MappedBookReader mappedReader = new MappedBookReader(mappedFile);
+
+        long missingKey = 0;
+        while (written.containsKey(missingKey)) {
+            missingKey++;
+        }
+        long searchKey = missingKey;
+        IllegalArgumentException thrown = assertThrows(
+                IllegalArgumentException.class,
+                () -> mappedReader.get(searchKey)
+        );
+        assertEquals("No key of " + searchKey + " found", thrown.getMessage());
+    }
+
+    // The converted book should give the same answers as the original, including on negative evals
+    @Test
+    void testMatchesTreeReader() throws IOException {
+        writeBooks(500);
+        TreeReader treeReader = new TreeReader(treeFile);
+        MappedBookReader mappedReader = new MappedBookReader(mappedFile);
+
+        for (long key : written.keySet()) {
+            assertEquals(treeReader.get(key), mappedReader.get(key));
+        }
+    }
+
+    @Test
+    void testReadEntries() throws IOException {
+        writeBooks(50);
+        long[] entries = new TreeReader(treeFile).readEntries();
+
+        assertEquals(50, entries.length);
+        for (long entry : entries) {
+            assertEquals((byte) written.get(entry >>> 8), (byte) entry);
+        }
+    }
+}
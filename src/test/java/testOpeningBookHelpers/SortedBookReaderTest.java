@@ -0,0 +1,118 @@
+package testOpeningBookHelpers;
+
+import openingBookHelpers.SortedBookReader;
+import openingBookHelpers.SortedBookWriter;
+import openingBookHelpers.TreeReader;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SortedBookReaderTest {
+    @TempDir
+    Path tempDir;
+
+    // Keys and evals which were written to the book
+    TreeMap<Long, Byte> written;
+    File sortedFile;
+
+    // Writes a sorted book of random keys, the way BookMaker writes one too big for a tree
+    void writeBook(int numKeys) throws IOException {
+        written = BookFixtures.randomBook(numKeys, true);
+        try (SortedBookWriter bookWriter = new SortedBookWriter(sortedFile, 64)) {
+            for (Map.Entry<Long, Byte> entry : written.entrySet()) {
+                bookWriter.insertNode(entry.getKey(), entry.getValue());
+            }
+            bookWriter.writeSortedRun();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        sortedFile = tempDir.resolve(SortedBookReader.fileName(0)).toFile();
+    }
+
+    // Chunks of 3 entries, so most lookups cross from one mapping to another
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 2, 3, 4, 7, 100, 5000 })
+    void testGet(int numKeys) throws IOException {
+        writeBook(numKeys);
+        SortedBookReader sortedReader = new SortedBookReader(sortedFile, 3);
+
+        assertEquals(numKeys, sortedReader.getNumEntries());
+        for (Map.Entry<Long, Byte> entry : written.entrySet()) {
+            assertEquals((int) entry.getValue(), sortedReader.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    void testGetException() throws IOException {
+        writeBook(100);
+        SortedBookReader sortedReader = new SortedBookReader(sortedFile, 3);
+
+        // Between the keys in the book, and above them all
+        long missingKey = 0;
+        while (written.containsKey(missingKey)) {
+            missingKey++;
+        }
+        for (long searchKey : new long[] { missingKey, written.lastKey() + 1 }) {
+            IllegalArgumentException thrown = assertThrows(
+                    IllegalArgumentException.class,
+                    () -> sortedReader.get(searchKey)
+            );
+            assertEquals("No key of " + searchKey + " found", thrown.getMessage());
+        }
+    }
+
+    @Test
+    void testIterator() throws IOException {
+        writeBook(1000);
+
+        List<Long> keys = new ArrayList<>();
+        for (long key : new SortedBookReader(sortedFile, 7)) {
+            keys.add(key);
+        }
+        assertEquals(new ArrayList<>(written.keySet()), keys);
+    }
+
+    @Test
+    void testReadEntries() throws IOException {
+        writeBook(1000);
+        assertArrayEquals(BookFixtures.pack(written), new SortedBookReader(sortedFile, 7).readEntries());
+    }
+
+    // TreeReader's helpers read a sorted book the same as a tree book, going by the file name
+    @Test
+    void testEitherFormat() throws IOException {
+        writeBook(500);
+        File treeFile = tempDir.resolve("depth0Book.bin").toFile();
+        BookFixtures.writeTree(written, treeFile);
+
+        assertTrue(TreeReader.openBook(sortedFile) instanceof SortedBookReader);
+        assertTrue(TreeReader.openBook(treeFile) instanceof TreeReader);
+
+        long[] sortedEntries = TreeReader.readBookEntries(sortedFile);
+        long[] treeEntries = TreeReader.readBookEntries(treeFile);
+        Arrays.sort(treeEntries);
+        assertArrayEquals(treeEntries, sortedEntries);
+
+        List<Long> keys = new ArrayList<>();
+        for (long key : TreeReader.bookKeys(sortedFile)) {
+            keys.add(key);
+        }
+        assertEquals(new ArrayList<>(written.keySet()), keys);
+    }
+}
@@ -0,0 +1,188 @@
+package testOpeningBookHelpers;
+
+import openingBookHelpers.SortedBookWriter;
+import openingBookHelpers.TreeReader;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SortedBookWriterTest {
+    @TempDir
+    Path tempDir;
+
+    File file;
+
+    @BeforeEach
+    void setUp() {
+        file = tempDir.resolve("depth0Book.bin").toFile();
+    }
+
+    // Small runs, so that most sizes are merged from several run files
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 1, 2, 3, 7, 100, 1000, 5000 })
+    void testReadable(int numKeys) throws IOException {
+        Random random = new Random(numKeys);
+        Map<Long, Byte> written = new HashMap<>();
+
+        try (SortedBookWriter bookWriter = new SortedBookWriter(file, 64)) {
+            while (written.size() < numKeys) {
+                long key = random.nextLong() & 0x1FFFFFFFFFFFFL;
+                byte value = (byte) (random.nextInt(37) - 18);
+                if (written.putIfAbsent(key, value) == null) {
+                    bookWriter.insertNode(key, value);
+                }
+            }
+            bookWriter.writeContent();
+        }
+
+        TreeReader treeReader = new TreeReader(file);
+        for (Map.Entry<Long, Byte> entry : written.entrySet()) {
+            assertEquals((int) entry.getValue(), treeReader.get(entry.getKey()));
+        }
+
+        int count = 0;
+        for (long key : treeReader) {
+            assertTrue(written.containsKey(key));
+            count++;
+        }
+        assertEquals(numKeys, count);
+    }
+
+    /* Keys 0 to 6 make the balanced tree
+     *              3
+     *            /   \
+     *           1     5
+     *          / \   / \
+     *         0   2 4   6
+     * So the preorder is 3 1 0 2 5 4 6, and the left weights are 3 1 0 0 1 0 0 */
+    @Test
+    void testLayout() throws IOException {
+        try (SortedBookWriter bookWriter = new SortedBookWriter(file, 3)) {
+            for (long key : new long[] { 6, 2, 4, 0, 5, 1, 3 }) {
+                bookWriter.insertNode(key, (byte) key);
+            }
+            bookWriter.writeContent();
+        }
+
+        byte[] data = Files.readAllBytes(file.toPath());
+        long[] expectedKeys = { 3, 1, 0, 2, 5, 4, 6 };
+        int[] expectedLeftWeights = { 3, 1, 0, 0, 1, 0, 0 };
+        boolean[] expectedRightChildren = { true, true, false, false, true, false, false };
+
+        assertEquals(70, data.length);
+        int i = 0;
+        for (long key : new TreeReader(file)) {
+            assertEquals(expectedKeys[i], key);
+            assertEquals(expectedLeftWeights[i], data[10 * i + 9]);
+            assertEquals(expectedRightChildren[i], (data[10 * i + 6] & 1) == 1);
+            i++;
+        }
+    }
+
+    @Test
+    void testDuplicateKey() throws IOException {
+        try (SortedBookWriter bookWriter = new SortedBookWriter(file, 2)) {
+            bookWriter.insertNode(5, (byte) 1);
+            bookWriter.insertNode(9, (byte) 1);
+            bookWriter.insertNode(5, (byte) 2);
+
+            IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, bookWriter::writeContent);
+            assertEquals("Tree already contains a node with key 5", thrown.getMessage());
+        }
+    }
+
+    File writeRun(String name, long... keys) throws IOException {
+        File runFile = tempDir.resolve(name).toFile();
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(runFile))) {
+            for (long key : keys) {
+                out.writeLong(key << 8 | (key % 5));
+            }
+        }
+        return runFile;
+    }
+
+    // Shards from BookMaker are merged along with anything inserted, and are not deleted
+    @Test
+    void testAddSortedRun() throws IOException {
+        File firstRun = writeRun("shard0of2.bin", 1, 4, 9, 12);
+        File secondRun = writeRun("shard1of2.bin", 2, 3, 20);
+
+        try (SortedBookWriter bookWriter = new SortedBookWriter(file, 2)) {
+            bookWriter.addSortedRun(firstRun);
+            bookWriter.addSortedRun(secondRun);
+            bookWriter.insertNode(7, (byte) 2);
+            bookWriter.writeContent();
+        }
+        assertTrue(firstRun.exists());
+        assertTrue(secondRun.exists());
+
+        TreeReader treeReader = new TreeReader(file);
+        long[] expectedKeys = { 1, 2, 3, 4, 7, 9, 12, 20 };
+        for (long key : expectedKeys) {
+            assertEquals(key == 7 ? 2 : key % 5, treeReader.get(key));
+        }
+        assertEquals(expectedKeys.length * 10, file.length());
+    }
+
+    // The merged entries can be written as a sorted run instead of a tree, which is how BookMaker writes its shards
+    @Test
+    void testWriteSortedRun() throws IOException {
+        File runFile = tempDir.resolve("shard0of1.bin").toFile();
+        try (SortedBookWriter bookWriter = new SortedBookWriter(runFile, 2)) {
+            for (long key : new long[] { 9, 2, 20, 4, 1 }) {
+                bookWriter.insertNode(key, (byte) (key % 5));
+            }
+            bookWriter.writeSortedRun();
+        }
+        assertArrayEquals(Files.readAllBytes(writeRun("expected.bin", 1, 2, 4, 9, 20).toPath()), Files.readAllBytes(runFile.toPath()));
+
+        // So it can be merged into a book
+        try (SortedBookWriter bookWriter = new SortedBookWriter(file, 2)) {
+            bookWriter.addSortedRun(runFile);
+            bookWriter.writeContent();
+        }
+        assertEquals(4, new TreeReader(file).get(9));
+    }
+
+    // A tree's left weights can't hold more than maxEntries, so a bigger book has to be a sorted run
+    // The shard is sparse, since it is never read
+    @Test
+    void testTooBigForTree() throws IOException {
+        File shard = tempDir.resolve("shard0of1.bin").toFile();
+        try (RandomAccessFile out = new RandomAccessFile(shard, "rw")) {
+            out.setLength((SortedBookWriter.maxEntries + 1L) * Long.BYTES);
+        }
+
+        try (SortedBookWriter bookWriter = new SortedBookWriter(file)) {
+            bookWriter.addSortedRun(shard);
+            assertThrows(IllegalArgumentException.class, bookWriter::writeContent);
+        }
+        assertFalse(file.exists());
+    }
+
+    @Test
+    void testUnsortedRun() throws IOException {
+        File run = writeRun("shard0of1.bin", 1, 9, 4);
+
+        try (SortedBookWriter bookWriter = new SortedBookWriter(file)) {
+            bookWriter.addSortedRun(run);
+            assertThrows(IllegalArgumentException.class, bookWriter::writeContent);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package testServer;
+
+import liveSolverClasses.ConcurrentTranspositionTable;
+import liveSolverClasses.TableSnapshot;
+import liveSolverClasses.TranspositionTable;
+import server.TableCheckpointer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TableCheckpointerTest {
+    @TempDir
+    Path tempDir;
+
+    File folder;
+    ConcurrentTranspositionTable table;
+    TableCheckpointer checkpointer;
+
+    @BeforeEach
+    void createTable() {
+        folder = tempDir.resolve("tableCheckpoints").toFile();
+        table = new ConcurrentTranspositionTable(TranspositionTable.minLogEntries);
+        checkpointer = new TableCheckpointer(table, folder);
+    }
+
+    @Test
+    void testNoCheckpoints() {
+        assertNull(TableCheckpointer.loadNewest(folder));
+    }
+
+    @Test
+    void testLoadNewest() throws IOException {
+        table.put(0xF9F3EFCF87L, 1);
+        checkpointer.checkpoint();
+        table.put(0x17D185AB85C4AL, 2);
+        File newest = checkpointer.checkpoint();
+
+        assertEquals(newest, TableCheckpointer.findCheckpoints(folder)[0]);
+        ConcurrentTranspositionTable loaded = new ConcurrentTranspositionTable(TableCheckpointer.loadNewest(folder));
+        assertEquals(2, loaded.get(0x17D185AB85C4AL));
+    }
+
+    @Test
+    void testKeepsNewest() throws IOException {
+        File[] written = new File[TableCheckpointer.checkpointsKept + 2];
+        for (int i = 0; i < written.length; i++) {
+            written[i] = checkpointer.checkpoint();
+        }
+
+        File[] kept = TableCheckpointer.findCheckpoints(folder);
+        assertEquals(TableCheckpointer.checkpointsKept, kept.length);
+        for (int i = 0; i < kept.length; i++) {
+            assertEquals(written[written.length - 1 - i], kept[i]);
+        }
+    }
+
+    // A corrupt newest checkpoint is skipped for the one before it
+    @Test
+    void testSkipsCorrupt() throws IOException {
+        table.put(0xF9F3EFCF87L, 1);
+        checkpointer.checkpoint();
+        table.put(0xF9F3EFCF87L, 3);
+        File newest = checkpointer.checkpoint();
+
+        try (RandomAccessFile corrupt = new RandomAccessFile(newest, "rw")) {
+            corrupt.setLength(newest.length() - 1);
+        }
+        ConcurrentTranspositionTable loaded = new ConcurrentTranspositionTable(TableCheckpointer.loadNewest(folder));
+        assertEquals(1, loaded.get(0xF9F3EFCF87L));
+
+        Files.delete(TableCheckpointer.findCheckpoints(folder)[1].toPath());
+        assertNull(TableCheckpointer.loadNewest(folder));
+    }
+
+    // Left behind by a crash while writing, and never read as a checkpoint
+    @Test
+    void testUnfinishedIgnored() throws IOException {
+        Files.createDirectories(folder.toPath());
+        File unfinished = new File(folder, "checkpoint-1.bin.tmp");
+        Files.write(unfinished.toPath(), new byte[TableSnapshot.headerBytes]);
+        assertNull(TableCheckpointer.loadNewest(folder));
+
+        checkpointer.checkpoint();
+        assertFalse(unfinished.exists());
+    }
+}
@@ -1,6 +1,9 @@
 package testServer;
 
 import miscHelpers.Utils;
+import openingBookHelpers.TreeReader;
+import server.AnalyzeHandler;
+import server.BatchHandler;
 import server.SolveHandler;
 
 import java.nio.file.Paths;
@@ -8,10 +11,23 @@ import java.util.Scanner;
 import java.io.File;
 import java.nio.file.Path;
 import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
 
 import org.junit.jupiter.api.*;
 
 import liveSolverClasses.Position;
+import liveSolverClasses.Solver;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -70,6 +86,155 @@ public class testSolveHandler {
 		}
     }
 
+	// Analyzing must match solving each child, both inside the book and beyond it
+	@Test
+	void testMixedAnalyze() throws IOException {
+		String[] movesList = {"", "3", "21640460120446", "224551222454", "000000111111222222633333344444455555566666"};
+		for (String moves : movesList) {
+			position = new Position();
+			playMoves(position, moves);
+			int[] evaluations = solveHandler.mixedAnalyze(position);
+
+			for (int col = 0; col < Position.WIDTH; col++) {
+				if (!position.canPlay(col)) {
+					assertEquals(Solver.illegalMove, evaluations[col]);
+					continue;
+				}
+				Position child = new Position(position);
+				child.playCol(col);
+				assertEquals(solveHandler.mixedSolve(child), evaluations[col]);
+			}
+		}
+	}
+
+	// Sends one request (a GET when there is no body) to a handler, which is served on a local port only for that request
+	static HttpResponse<String> sendRequest(String context, HttpHandler handler, String path, String body) throws IOException, InterruptedException {
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext(context, handler);
+		server.start();
+		try {
+			URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + context + path);
+			HttpRequest.Builder request = HttpRequest.newBuilder(uri);
+			if (body != null) {
+				request.POST(HttpRequest.BodyPublishers.ofString(body));
+			}
+			return HttpClient.newHttpClient().send(request.build(), HttpResponse.BodyHandlers.ofString());
+		}
+		finally {
+			server.stop(0);
+		}
+	}
+
+	// A batch streams back one whole record per line, the invalid move strings first, then one for every valid
+	// move string (repeats and mirrors included), each with the same evaluation as solving it on its own
+	@Test
+	void testBatch() throws IOException, InterruptedException {
+		String[] validMoves = {"224551222454", "442115444212", "21640460120446", "224551222454"};
+		String[] invalidMoves = {"9", "0000000", "12a"};
+
+		String request = String.join("\n", validMoves) + "\n\n" + String.join("\n", invalidMoves) + "\n";
+		String response = sendRequest("/batch/", new BatchHandler(solveHandler, 2), "", request).body();
+
+		assertTrue(response.endsWith("\n"));
+		String[] records = response.split("\n");
+		assertEquals(validMoves.length + invalidMoves.length, records.length);
+
+		Pattern errorRecord = Pattern.compile("\\{\"moves\":\"([^\"]*)\",\"error\":\"Not a valid sequence of moves\"}");
+		Pattern evaluationRecord = Pattern.compile("\\{\"moves\":\"(\\d*)\",\"evaluation\":(-?\\d+)}");
+		ArrayList<String> invalidAnswered = new ArrayList<>();
+		ArrayList<String> validAnswered = new ArrayList<>();
+		for (int i = 0; i < records.length; i++) {
+			if (i < invalidMoves.length) {
+				Matcher matcher = errorRecord.matcher(records[i]);
+				assertTrue(matcher.matches(), records[i]);
+				invalidAnswered.add(matcher.group(1));
+				continue;
+			}
+			Matcher matcher = evaluationRecord.matcher(records[i]);
+			assertTrue(matcher.matches(), records[i]);
+			position = new Position();
+			playMoves(position, matcher.group(1));
+			int evaluation = SolveHandler.displayEvaluation(solveHandler.mixedSolve(position), position.movesPlayed);
+			assertEquals(evaluation, Integer.parseInt(matcher.group(2)));
+			validAnswered.add(matcher.group(1));
+		}
+
+		assertEquals(Arrays.asList(invalidMoves), invalidAnswered);
+		String[] validSorted = validMoves.clone();
+		Arrays.sort(validSorted);
+		validAnswered.sort(null);
+		assertEquals(Arrays.asList(validSorted), validAnswered);
+	}
+
+	// Moves which are not a legal game get a bad request, rather than a dropped connection
+	@Test
+	void testInvalidMoves() throws IOException, InterruptedException {
+		String[] invalidMoves = {"9", "0000000", "12a", "32323232"};
+		for (String moves : invalidMoves) {
+			assertBadRequest(sendRequest("/solve/", solveHandler, moves, null), moves);
+			assertBadRequest(sendRequest("/analyze/", new AnalyzeHandler(solveHandler), moves, null), moves);
+		}
+		assertEquals(200, sendRequest("/analyze/", new AnalyzeHandler(solveHandler), "2164046012044", null).statusCode());
+	}
+
+	private static void assertBadRequest(HttpResponse<String> response, String moves) {
+		assertEquals(400, response.statusCode(), moves);
+		assertEquals("Not a valid sequence of moves", response.body(), moves);
+	}
+
+	// With a deadline, a live solve that runs out of time is answered with its two bounds, and the header says so
+	@Test
+	void testDeadlineBounds() throws IOException, ClassNotFoundException, InterruptedException {
+		System.setProperty("solveDeadlineMillis", "1");
+		SolveHandler deadlineHandler;
+		try {
+			deadlineHandler = new SolveHandler();
+		}
+		finally {
+			System.clearProperty("solveDeadlineMillis");
+		}
+		String lineOfPlay = "000000111111222222633333344444455555566666";
+
+		// The first depth past the book has the longest live solves, far more than a millisecond
+		HttpResponse<String> deepResponse = sendRequest("/solve/", deadlineHandler, lineOfPlay.substring(0, TreeReader.getMaxBookDepth() + 1), null);
+		assertEquals("bounds", deepResponse.headers().firstValue("X-Evaluation").orElse(null));
+		String[] bounds = deepResponse.body().split(",");
+		assertEquals(2, bounds.length);
+		assertNotEquals(Integer.parseInt(bounds[0]), Integer.parseInt(bounds[1]));
+
+		// A nearly full board is solved before the deadline is ever checked, so it is still exact
+		String shallowMoves = lineOfPlay.substring(0, lineOfPlay.length() - 1);
+		HttpResponse<String> shallowResponse = sendRequest("/solve/", deadlineHandler, shallowMoves, null);
+		assertEquals("exact", shallowResponse.headers().firstValue("X-Evaluation").orElse(null));
+		position = new Position();
+		playMoves(position, shallowMoves);
+		int evaluation = SolveHandler.displayEvaluation(solveHandler.mixedSolve(position), position.movesPlayed);
+		assertEquals(String.valueOf(evaluation), shallowResponse.body());
+
+		// Analysis shares the deadline, and each child that runs out of time gets its two bounds
+		HttpResponse<String> deepAnalysis = sendRequest("/analyze/", new AnalyzeHandler(deadlineHandler), lineOfPlay.substring(0, Math.max(TreeReader.getMaxBookDepth(), 0)), null);
+		assertEquals("bounds", deepAnalysis.headers().firstValue("X-Evaluation").orElse(null));
+		String[] children = deepAnalysis.body().split(",", -1);
+		assertEquals(Position.WIDTH, children.length);
+		assertTrue(Arrays.stream(children).anyMatch(child -> child.matches("-?\\d+:-?\\d+")), deepAnalysis.body());
+
+		String shallowAnalyzed = lineOfPlay.substring(0, lineOfPlay.length() - 2);
+		HttpResponse<String> shallowAnalysis = sendRequest("/analyze/", new AnalyzeHandler(deadlineHandler), shallowAnalyzed, null);
+		assertEquals("exact", shallowAnalysis.headers().firstValue("X-Evaluation").orElse(null));
+		position = new Position();
+		playMoves(position, shallowAnalyzed);
+		assertEquals(analysisResponse(position, solveHandler.mixedAnalyze(position)), shallowAnalysis.body());
+	}
+
+	// What /analyze/ answers for exact evaluations
+	static String analysisResponse(Position position, int[] evaluations) {
+		String[] children = new String[Position.WIDTH];
+		for (int col = 0; col < Position.WIDTH; col++) {
+			children[col] = evaluations[col] == Solver.illegalMove ? "" : String.valueOf(SolveHandler.displayEvaluation(evaluations[col], position.movesPlayed + 1));
+		}
+		return String.join(",", children);
+	}
+
     @AfterAll
     static void closeFiles() {
 		for (Scanner fileStream : fileStreams) {